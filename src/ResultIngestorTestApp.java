@@ -0,0 +1,107 @@
+import cycling.ConcurrentCyclingPortal;
+import cycling.DuplicatedResultException;
+import cycling.ResultIngestor;
+import cycling.StageType;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A short program testing that a ResultIngestor registers the results
+ * submitted by several threads at once and completes the future of every
+ * submission. Each producer attaches a callback that creates a team, which
+ * needs the portal's lock exclusively, so the program hangs if the futures
+ * are completed while the applier thread still holds a lock of the portal.
+ * Run with assertions enabled (java -ea).
+ */
+public class ResultIngestorTestApp {
+
+	static final int PRODUCERS = 4; // Threads submitting results at once
+	static final int RIDERS_PER_PRODUCER = 250; // Riders whose results each thread submits
+
+	/**
+	 * Test method for ResultIngestor.
+	 * @param args not used
+	 * @throws Exception If the portal cannot be set up, or a future does not
+	 * complete in time.
+	 */
+	public static void main(String[] args) throws Exception {
+		System.out.println("The system compiled and started the execution...");
+
+		ConcurrentCyclingPortal portal = new ConcurrentCyclingPortal();
+		int raceId = portal.createRace("Tour", "A race");
+		int stageId = portal.addStageToRace(raceId, "Stage1", "A stage", 100.0, LocalDateTime.now(), StageType.FLAT);
+		portal.concludeStagePreparation(stageId);
+		int teamId = portal.createTeam("Team", "A team");
+		int[] riderIds = new int[PRODUCERS * RIDERS_PER_PRODUCER];
+		for (int i = 0; i < riderIds.length; i++) {
+			riderIds[i] = portal.createRider(teamId, "Rider" + i, 1990);
+		}
+
+		ResultIngestor ingestor = new ResultIngestor(portal);
+		List<CompletableFuture<Integer>> callbacks = Collections.synchronizedList(new ArrayList<CompletableFuture<Integer>>());
+		Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			int first = p * RIDERS_PER_PRODUCER;
+			producers[p] = new Thread(() -> {
+				for (int i = first; i < first + RIDERS_PER_PRODUCER; i++) {
+					String teamName = "Team" + i;
+					callbacks.add(ingestor.submit(stageId, riderIds[i], LocalTime.of(10, 0), LocalTime.of(13, 0, i % 60))
+							.thenApply(registered -> {
+								try {
+									return portal.createTeam(teamName, "Created once the result was registered");
+								} catch (Exception e) {
+									throw new RuntimeException(e);
+								}
+							}));
+				}
+			});
+			producers[p].start();
+		}
+		for (Thread producer: producers) {
+			producer.join();
+		}
+		for (CompletableFuture<Integer> callback: callbacks) {
+			callback.get(10, TimeUnit.SECONDS); // throws if a result was rejected, or a callback never ran
+		}
+		assert (portal.getRidersRankInStage(stageId).length == riderIds.length)
+				: "Not every submitted result was registered.";
+		assert (portal.getTeams().length == riderIds.length + 1)
+				: "Not every callback created its team.";
+
+		CompletableFuture<Void> duplicate = ingestor.submit(stageId, riderIds[0], LocalTime.of(10, 0), LocalTime.of(13, 0));
+		try {
+			duplicate.get(10, TimeUnit.SECONDS);
+			assert false : "A duplicated result was registered.";
+		} catch (ExecutionException e) {
+			assert (e.getCause() instanceof DuplicatedResultException)
+					: "A duplicated result was rejected with the wrong exception.";
+		}
+
+		try {
+			ingestor.submit(stageId, riderIds[0], (LocalTime[]) null);
+			assert false : "A null array of checkpoints was accepted.";
+		} catch (NullPointerException e) {
+			// rejected before it was counted, so close() below still returns
+		}
+
+		Thread closer = new Thread(() -> {
+			try {
+				ingestor.close();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		closer.setDaemon(true); // lets the program end if close() never returns
+		closer.start();
+		closer.join(10000);
+		assert (!closer.isAlive()) : "The result ingestor did not close.";
+		System.out.println("The result ingestor registered every submission.");
+	}
+}
@@ -0,0 +1,803 @@
+package cycling;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ConcurrentCyclingPortal is a thread-safe implementation of the
+ * LeaderboardPortalInterface interface. It keeps its state in a
+ * CyclingPortal and guards it with read/write locks at two levels.
+ * <p>
+ * Every race has a lock stripe of its own, since races share no results.
+ * Registering, deleting and querying the results of a race take its stripe,
+ * exclusively for changes and shared for queries, so the timing feed of one
+ * race never waits for the leaderboards of another. These operations also
+ * hold the global lock shared. Operations that add or remove races, stages,
+ * segments, teams or riders, or that span the whole portal, take the global
+ * lock exclusively and so wait for every race. Queries of the races, stages
+ * and teams themselves only change under the global lock, so they take
+ * only its shared lock.
+ * <p>
+ * Some queries of CyclingPortal store what they compute, such as the
+ * adjusted elapsed times of a stage or the classifications of a race. A
+ * query first checks under the read lock whether there is anything to store.
+ * Only if there is does it run under the write lock instead, and the
+ * queries that follow read the stored values under the read lock again.
+ */
+public class ConcurrentCyclingPortal implements LeaderboardPortalInterface {
+
+	/**
+	 * A query of the portal, run under the read lock when the portal is up to
+	 * date and under the write lock otherwise.
+	 * @param <T> The type of the result of the query.
+	 */
+	private interface Query<T> {
+		/**
+		 * Runs the query.
+		 * @return The result of the query.
+		 * @throws IDNotRecognisedException If an ID of the query does not match
+		 * anything in the system.
+		 */
+		T run() throws IDNotRecognisedException;
+	}
+
+	private final CyclingPortal portal; // The state of the portal, only accessed under the locks
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Shared by operations on one race, exclusive to the rest
+	private IntObjectMap<ReentrantReadWriteLock> raceLocks = new IntObjectMap<ReentrantReadWriteLock>(); // The lock stripe of each race, only changed under the global lock
+
+	/**
+	 * Shuts down the pool of threads the portal created for itself, if any,
+	 * holding the global lock exclusively so that no query is using it.
+	 * @see CyclingPortal#shutdown()
+	 */
+	public void shutdown() {
+		lock.writeLock().lock();
+		try {
+			portal.shutdown();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes the portal with Java serialization, holding the global lock
+	 * exclusively so that no operation changes it meanwhile. The locks are
+	 * read back unlocked.
+	 * @param output The stream the portal is written to.
+	 * @throws IOException If there is a problem writing the stream.
+	 */
+	private void writeObject(ObjectOutputStream output) throws IOException {
+		lock.writeLock().lock();
+		try {
+			output.defaultWriteObject();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Constructor for ConcurrentCyclingPortal. The stages of a race are
+	 * brought up to date in parallel on the common fork/join pool.
+	 */
+	public ConcurrentCyclingPortal() {
+		portal = new CyclingPortal();
+	}
+
+	/**
+	 * Constructor for ConcurrentCyclingPortal, with its own pool of threads to
+	 * bring the stages of a race up to date in parallel. The pool is released
+	 * by {@link #shutdown()}.
+	 * @param parallelism The number of stages brought up to date at once.
+	 * 1 or less brings them up to date one after another on the calling thread.
+	 */
+	public ConcurrentCyclingPortal(int parallelism) {
+		portal = new CyclingPortal(parallelism);
+	}
+
+	/**
+	 * Replaces the points tables used to award points and mountain points.
+	 * @param scheme The scoring scheme to award points with.
+	 */
+	public void setScoringScheme(ScoringScheme scheme) {
+		lock.writeLock().lock();
+		try {
+			portal.setScoringScheme(scheme);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Recomputes every classification of every race from its results, holding
+	 * the global lock exclusively while the tasks run.
+	 * @see CyclingPortal#recomputeAllClassifications()
+	 * @return How long each task, and the whole recomputation, took.
+	 */
+	public RecomputeReport recomputeAllClassifications() {
+		lock.writeLock().lock();
+		try {
+			return portal.recomputeAllClassifications();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Acquires the global lock shared and the lock stripe of a race.
+	 * @param raceId The ID of the race.
+	 * @param exclusive True to acquire the stripe exclusively, false to share it.
+	 * @return The stripe of the race, or null if there is no such race.
+	 */
+	private ReentrantReadWriteLock enterRace(int raceId, boolean exclusive) {
+		lock.readLock().lock();
+		return lockStripe(raceId, exclusive);
+	}
+
+	/**
+	 * Acquires the global lock shared and the lock stripe of the race of a stage.
+	 * @param stageId The ID of the stage.
+	 * @param exclusive True to acquire the stripe exclusively, false to share it.
+	 * @return The stripe of the race of the stage, or null if there is no such stage.
+	 */
+	private ReentrantReadWriteLock enterStage(int stageId, boolean exclusive) {
+		lock.readLock().lock(); // the stage is looked up only once no stage can be added or removed
+		Stage stage = portal.stageIndex.get(stageId);
+		return lockStripe(stage == null ? -1 : stage.getRaceID(), exclusive);
+	}
+
+	/**
+	 * Acquires the lock stripe of a race. Called holding the global lock, shared.
+	 * @param raceId The ID of the race.
+	 * @param exclusive True to acquire the stripe exclusively, false to share it.
+	 * @return The stripe of the race, or null if there is no such race.
+	 */
+	private ReentrantReadWriteLock lockStripe(int raceId, boolean exclusive) {
+		ReentrantReadWriteLock stripe = raceLocks.get(raceId);
+		if (stripe != null) {
+			if (exclusive) {
+				stripe.writeLock().lock();
+			} else {
+				stripe.readLock().lock();
+			}
+		}
+		return stripe;
+	}
+
+	/**
+	 * Releases a lock stripe and the global lock acquired by enterRace or enterStage.
+	 * @param stripe The stripe returned when the locks were acquired.
+	 * @param exclusive True if the stripe was acquired exclusively.
+	 */
+	private void exit(ReentrantReadWriteLock stripe, boolean exclusive) {
+		if (stripe != null) {
+			if (exclusive) {
+				stripe.writeLock().unlock();
+			} else {
+				stripe.readLock().unlock();
+			}
+		}
+		lock.readLock().unlock();
+	}
+
+	/**
+	 * Runs a query of a stage sharing the stripe of its race if what the query
+	 * reads is up to date, and holding the stripe exclusively if the query has
+	 * to store anything first.
+	 * @param stageId The ID of the stage being queried.
+	 * @param points True if the query reads the points of the stage, false if
+	 * it reads its adjusted elapsed times.
+	 * @param query The query.
+	 * @param <T> The type of the result of the query.
+	 * @return The result of the query.
+	 * @throws IDNotRecognisedException If an ID of the query does not match
+	 * anything in the system.
+	 */
+	private <T> T readStage(int stageId, boolean points, Query<T> query) throws IDNotRecognisedException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, false);
+		try {
+			if (points ? portal.isStageScored(stageId) : portal.isStageAdjusted(stageId)) {
+				return query.run();
+			}
+		} finally {
+			exit(stripe, false);
+		}
+		stripe = enterStage(stageId, true);
+		try {
+			return query.run(); // the stage is brought up to date once, for every reader after this one
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	/**
+	 * Runs a query of a race sharing its stripe if the race is up to date, and
+	 * holding the stripe exclusively if the query has to store anything first.
+	 * @param raceId The ID of the race being queried.
+	 * @param query The query.
+	 * @param <T> The type of the result of the query.
+	 * @return The result of the query.
+	 * @throws IDNotRecognisedException If an ID of the query does not match
+	 * anything in the system.
+	 */
+	private <T> T readRace(int raceId, Query<T> query) throws IDNotRecognisedException {
+		ReentrantReadWriteLock stripe = enterRace(raceId, false);
+		try {
+			if (portal.isRaceUpToDate(raceId)) {
+				return query.run();
+			}
+		} finally {
+			exit(stripe, false);
+		}
+		stripe = enterRace(raceId, true);
+		try {
+			return query.run(); // the race is brought up to date once, for every reader after this one
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	/**
+	 * Runs a query of a stage sharing the stripe of its race.
+	 * @param stageId The ID of the stage being queried.
+	 * @param query The query, which must not store anything.
+	 * @param <T> The type of the result of the query.
+	 * @return The result of the query.
+	 * @throws IDNotRecognisedException If an ID of the query does not match
+	 * anything in the system.
+	 */
+	private <T> T readStageResults(int stageId, Query<T> query) throws IDNotRecognisedException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, false);
+		try {
+			return query.run();
+		} finally {
+			exit(stripe, false);
+		}
+	}
+
+	/**
+	 * Runs a query under the global lock, shared.
+	 * @param query The query, which must not read any results.
+	 * @param <T> The type of the result of the query.
+	 * @return The result of the query.
+	 * @throws IDNotRecognisedException If an ID of the query does not match
+	 * anything in the system.
+	 */
+	private <T> T read(Query<T> query) throws IDNotRecognisedException {
+		lock.readLock().lock();
+		try {
+			return query.run();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Registers a batch of submitted results, holding the global lock once
+	 * and the stripe of each race once per run of submissions to that race,
+	 * in the order they were submitted. The future of every submission is
+	 * completed, exceptionally if the result was rejected, once every lock is
+	 * released, so that callbacks attached to it may use the portal.
+	 * @param batch The submissions, drained from a ResultIngestor.
+	 */
+	void registerRiderResults(ArrayList<ResultIngestor.Submission> batch) {
+		Exception[] rejections = new Exception[batch.size()]; // null where the result was registered
+		lock.readLock().lock();
+		int raceId = -1;
+		ReentrantReadWriteLock stripe = null;
+		try {
+			for (int i = 0; i < batch.size(); i++) {
+				ResultIngestor.Submission submission = batch.get(i);
+				Stage stage = portal.stageIndex.get(submission.stageId);
+				if (stage != null && (stripe == null || stage.getRaceID() != raceId)) {
+					if (stripe != null) {
+						stripe.writeLock().unlock();
+					}
+					raceId = stage.getRaceID();
+					stripe = raceLocks.get(raceId);
+					stripe.writeLock().lock();
+				}
+				try {
+					portal.registerRiderResultsInStage(submission.stageId, submission.riderId, submission.checkpoints);
+				} catch (Exception e) {
+					rejections[i] = e; // e.g. an unknown ID or a duplicated result
+				}
+			}
+		} finally {
+			if (stripe != null) {
+				stripe.writeLock().unlock();
+			}
+			lock.readLock().unlock();
+		}
+		for (int i = 0; i < rejections.length; i++) {
+			if (rejections[i] == null) {
+				batch.get(i).future.complete(null);
+			} else {
+				batch.get(i).future.completeExceptionally(rejections[i]);
+			}
+		}
+	}
+
+	/**
+	 * Gives every race of the portal a lock stripe, and drops the stripes of
+	 * races that are gone. Called under the global lock, held exclusively.
+	 */
+	private void updateRaceLocks() {
+		IntObjectMap<ReentrantReadWriteLock> stripes = new IntObjectMap<ReentrantReadWriteLock>();
+		for (int raceId: portal.getRaceIds()) {
+			ReentrantReadWriteLock stripe = raceLocks.get(raceId);
+			stripes.put(raceId, stripe == null ? new ReentrantReadWriteLock() : stripe);
+		}
+		raceLocks = stripes;
+	}
+
+
+	@Override
+	public int[] getRaceIds() {
+		lock.readLock().lock();
+		try {
+			return portal.getRaceIds();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public int createRace(String name, String description) throws IllegalNameException, InvalidNameException {
+		lock.writeLock().lock();
+		try {
+			int raceId = portal.createRace(name, description);
+			raceLocks.put(raceId, new ReentrantReadWriteLock());
+			return raceId;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public String viewRaceDetails(int raceId) throws IDNotRecognisedException {
+		return read(() -> portal.viewRaceDetails(raceId));
+	}
+
+	@Override
+	public void removeRaceById(int raceId) throws IDNotRecognisedException {
+		lock.writeLock().lock();
+		try {
+			portal.removeRaceById(raceId);
+			raceLocks.remove(raceId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public int getNumberOfStages(int raceId) throws IDNotRecognisedException {
+		return read(() -> portal.getNumberOfStages(raceId));
+	}
+
+	@Override
+	public int addStageToRace(int raceId, String stageName, String description, double length, LocalDateTime startTime,
+			StageType type)
+			throws IDNotRecognisedException, IllegalNameException, InvalidNameException, InvalidLengthException {
+		lock.writeLock().lock();
+		try {
+			return portal.addStageToRace(raceId, stageName, description, length, startTime, type);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public int[] getRaceStages(int raceId) throws IDNotRecognisedException {
+		return read(() -> portal.getRaceStages(raceId));
+	}
+
+	@Override
+	public double getStageLength(int stageId) throws IDNotRecognisedException {
+		return read(() -> portal.getStageLength(stageId));
+	}
+
+	@Override
+	public void removeStageById(int stageId) throws IDNotRecognisedException {
+		lock.writeLock().lock();
+		try {
+			portal.removeStageById(stageId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public int addCategorizedClimbToStage(int stageId, Double location, SegmentType type, Double averageGradient,
+			Double length) throws IDNotRecognisedException, InvalidLocationException, InvalidStageStateException,
+			InvalidStageTypeException {
+		lock.writeLock().lock();
+		try {
+			return portal.addCategorizedClimbToStage(stageId, location, type, averageGradient, length);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public int addIntermediateSprintToStage(int stageId, double location) throws IDNotRecognisedException,
+			InvalidLocationException, InvalidStageStateException, InvalidStageTypeException {
+		lock.writeLock().lock();
+		try {
+			return portal.addIntermediateSprintToStage(stageId, location);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void removeSegment(int segmentId) throws IDNotRecognisedException, InvalidStageStateException {
+		lock.writeLock().lock();
+		try {
+			portal.removeSegment(segmentId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void concludeStagePreparation(int stageId) throws IDNotRecognisedException, InvalidStageStateException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, true);
+		try {
+			portal.concludeStagePreparation(stageId);
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	@Override
+	public int[] getStageSegments(int stageId) throws IDNotRecognisedException {
+		return read(() -> portal.getStageSegments(stageId));
+	}
+
+	@Override
+	public int createTeam(String name, String description) throws IllegalNameException, InvalidNameException {
+		lock.writeLock().lock();
+		try {
+			return portal.createTeam(name, description);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void removeTeam(int teamId) throws IDNotRecognisedException {
+		lock.writeLock().lock();
+		try {
+			portal.removeTeam(teamId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public int[] getTeams() {
+		lock.readLock().lock();
+		try {
+			return portal.getTeams();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public int[] getTeamRiders(int teamId) throws IDNotRecognisedException {
+		return read(() -> portal.getTeamRiders(teamId));
+	}
+
+	@Override
+	public int createRider(int teamID, String name, int yearOfBirth)
+			throws IDNotRecognisedException, IllegalArgumentException {
+		lock.writeLock().lock();
+		try {
+			return portal.createRider(teamID, name, yearOfBirth);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void removeRider(int riderId) throws IDNotRecognisedException {
+		lock.writeLock().lock();
+		try {
+			portal.removeRider(riderId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void registerRiderResultsInStage(int stageId, int riderId, LocalTime... checkpoints)
+			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
+			InvalidStageStateException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, true);
+		try {
+			portal.registerRiderResultsInStage(stageId, riderId, checkpoints);
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	/**
+	 * Records the time a rider passed one checkpoint of a stage, holding the
+	 * stripe of its race.
+	 * @see CyclingPortal#recordCheckpoint(int, int, int, LocalTime)
+	 * @param stageId The ID of the stage being raced.
+	 * @param riderId The ID of the rider.
+	 * @param checkpointIndex The index of the checkpoint.
+	 * @param time The time at which the rider passed the checkpoint.
+	 * @throws IDNotRecognisedException If the ID of the stage or rider does not
+	 * match anything in the system.
+	 * @throws DuplicatedResultException Thrown if the rider already has a result
+	 * for the stage, or already has the checkpoint recorded.
+	 * @throws InvalidCheckpointsException Thrown if the index is not a checkpoint
+	 * of the stage, if there is no time, or if the time is not after every
+	 * earlier checkpoint and before every later checkpoint of the rider.
+	 * @throws InvalidStageStateException Thrown if the stage is not "waiting
+	 * for results".
+	 */
+	public void recordCheckpoint(int stageId, int riderId, int checkpointIndex, LocalTime time)
+			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
+			InvalidStageStateException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, true);
+		try {
+			portal.recordCheckpoint(stageId, riderId, checkpointIndex, time);
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	/**
+	 * Records the times of a whole field of riders in a stage at once, holding
+	 * the stripe of its race once for the whole field.
+	 * @see CyclingPortal#registerRiderResultsInStageBatch(int, int[], LocalTime[][])
+	 * @param stageId The ID of the stage the results refer to.
+	 * @param riderIds The IDs of the riders.
+	 * @param checkpoints The checkpoints of each rider, at the same index as their ID.
+	 * @throws IDNotRecognisedException If the ID of the stage or of a rider
+	 * does not match anything in the system.
+	 * @throws DuplicatedResultException Thrown if a rider already has a result
+	 * for the stage, or appears twice in the field.
+	 * @throws InvalidCheckpointsException Thrown if the checkpoints of a rider
+	 * do not match the stage.
+	 * @throws InvalidStageStateException Thrown if the stage is not "waiting
+	 * for results".
+	 */
+	public void registerRiderResultsInStageBatch(int stageId, int[] riderIds, LocalTime[][] checkpoints)
+			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
+			InvalidStageStateException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, true);
+		try {
+			portal.registerRiderResultsInStageBatch(stageId, riderIds, checkpoints);
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	/**
+	 * Records the times of a whole field of riders in a stage at once, given
+	 * in seconds of the day, holding the stripe of its race once for the
+	 * whole field.
+	 * @see CyclingPortal#registerRiderResultsInStageBatch(int, int[], int[][])
+	 * @param stageId The ID of the stage the results refer to.
+	 * @param riderIds The IDs of the riders.
+	 * @param checkpoints The checkpoints of each rider in seconds of the day,
+	 * at the same index as their ID.
+	 * @throws IDNotRecognisedException If the ID of the stage or of a rider
+	 * does not match anything in the system.
+	 * @throws DuplicatedResultException Thrown if a rider already has a result
+	 * for the stage, or appears twice in the field.
+	 * @throws InvalidCheckpointsException Thrown if the checkpoints of a rider
+	 * do not match the stage.
+	 * @throws InvalidStageStateException Thrown if the stage is not "waiting
+	 * for results".
+	 */
+	public void registerRiderResultsInStageBatch(int stageId, int[] riderIds, int[][] checkpoints)
+			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
+			InvalidStageStateException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, true);
+		try {
+			portal.registerRiderResultsInStageBatch(stageId, riderIds, checkpoints);
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	@Override
+	public LocalTime[] getRiderResultsInStage(int stageId, int riderId) throws IDNotRecognisedException {
+		return readStageResults(stageId, () -> portal.getRiderResultsInStage(stageId, riderId));
+	}
+
+	@Override
+	public LocalTime getRiderAdjustedElapsedTimeInStage(int stageId, int riderId) throws IDNotRecognisedException {
+		return readStage(stageId, false, () -> portal.getRiderAdjustedElapsedTimeInStage(stageId, riderId));
+	}
+
+	@Override
+	public void deleteRiderResultsInStage(int stageId, int riderId) throws IDNotRecognisedException {
+		ReentrantReadWriteLock stripe = enterStage(stageId, true);
+		try {
+			portal.deleteRiderResultsInStage(stageId, riderId);
+		} finally {
+			exit(stripe, true);
+		}
+	}
+
+	@Override
+	public int[] getRidersRankInStage(int stageId) throws IDNotRecognisedException {
+		return readStageResults(stageId, () -> portal.getRidersRankInStage(stageId));
+	}
+
+	@Override
+	public int[] getRidersRankInStage(int stageId, int offset, int limit) throws IDNotRecognisedException {
+		return readStageResults(stageId, () -> portal.getRidersRankInStage(stageId, offset, limit));
+	}
+
+	@Override
+	public LocalTime[] getRankedAdjustedElapsedTimesInStage(int stageId) throws IDNotRecognisedException {
+		return readStage(stageId, false, () -> portal.getRankedAdjustedElapsedTimesInStage(stageId));
+	}
+
+	@Override
+	public LocalTime[] getRankedAdjustedElapsedTimesInStage(int stageId, int offset, int limit)
+			throws IDNotRecognisedException {
+		return readStage(stageId, false, () -> portal.getRankedAdjustedElapsedTimesInStage(stageId, offset, limit));
+	}
+
+	@Override
+	public int[] getRidersPointsInStage(int stageId) throws IDNotRecognisedException {
+		return readStage(stageId, true, () -> portal.getRidersPointsInStage(stageId));
+	}
+
+	@Override
+	public int[] getRidersMountainPointsInStage(int stageId) throws IDNotRecognisedException {
+		return readStage(stageId, true, () -> portal.getRidersMountainPointsInStage(stageId));
+	}
+
+	@Override
+	public void eraseCyclingPortal() {
+		lock.writeLock().lock();
+		try {
+			portal.eraseCyclingPortal();
+			updateRaceLocks();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void saveCyclingPortal(String filename) throws IOException {
+		lock.writeLock().lock(); // holds every race still while their results are written
+		try {
+			portal.saveCyclingPortal(filename);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void loadCyclingPortal(String filename) throws IOException, ClassNotFoundException {
+		lock.writeLock().lock();
+		try {
+			portal.loadCyclingPortal(filename);
+		} finally {
+			updateRaceLocks(); // races read before a failure stay in the portal
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void removeRaceByName(String name) throws NameNotRecognisedException {
+		lock.writeLock().lock();
+		try {
+			portal.removeRaceByName(name);
+			updateRaceLocks();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public LocalTime[] getGeneralClassificationTimesInRace(int raceId) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getGeneralClassificationTimesInRace(raceId));
+	}
+
+	@Override
+	public LocalTime[] getGeneralClassificationTimesInRace(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getGeneralClassificationTimesInRace(raceId, offset, limit));
+	}
+
+	@Override
+	public int[] getRidersPointsInRace(int raceId) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersPointsInRace(raceId));
+	}
+
+	@Override
+	public int[] getRidersMountainPointsInRace(int raceId) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersMountainPointsInRace(raceId));
+	}
+
+	@Override
+	public int[] getRidersGeneralClassificationRank(int raceId) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersGeneralClassificationRank(raceId));
+	}
+
+	@Override
+	public int[] getRidersGeneralClassificationRank(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersGeneralClassificationRank(raceId, offset, limit));
+	}
+
+	@Override
+	public int[] getRidersPointClassificationRank(int raceId) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersPointClassificationRank(raceId));
+	}
+
+	@Override
+	public int[] getRidersPointClassificationRank(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersPointClassificationRank(raceId, offset, limit));
+	}
+
+	@Override
+	public int[] getRidersMountainPointClassificationRank(int raceId) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersMountainPointClassificationRank(raceId));
+	}
+
+	@Override
+	public int[] getRidersMountainPointClassificationRank(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRidersMountainPointClassificationRank(raceId, offset, limit));
+	}
+
+	@Override
+	public int[] getTopRidersInStage(int stageId, int k) throws IDNotRecognisedException {
+		return readStageResults(stageId, () -> portal.getTopRidersInStage(stageId, k));
+	}
+
+	@Override
+	public int[] getTopGeneralClassification(int raceId, int k) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getTopGeneralClassification(raceId, k));
+	}
+
+	@Override
+	public int[] getTopPointClassification(int raceId, int k) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getTopPointClassification(raceId, k));
+	}
+
+	@Override
+	public int[] getTopMountainPointClassification(int raceId, int k) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getTopMountainPointClassification(raceId, k));
+	}
+
+	@Override
+	public RiderPosition getRiderStagePosition(int stageId, int riderId) throws IDNotRecognisedException {
+		return readStageResults(stageId, () -> portal.getRiderStagePosition(stageId, riderId));
+	}
+
+	@Override
+	public RiderPosition getRiderPosition(int raceId, int riderId) throws IDNotRecognisedException {
+		return readRace(raceId, () -> portal.getRiderPosition(raceId, riderId));
+	}
+
+	@Override
+	public int[] getRidersRankAtCheckpoint(int stageId, int checkpointIndex, int offset, int limit)
+			throws IDNotRecognisedException {
+		return readStageResults(stageId, () -> portal.getRidersRankAtCheckpoint(stageId, checkpointIndex, offset, limit));
+	}
+
+	@Override
+	public RiderPosition getRiderCheckpointPosition(int stageId, int riderId, int checkpointIndex)
+			throws IDNotRecognisedException {
+		return readStageResults(stageId, () -> portal.getRiderCheckpointPosition(stageId, riderId, checkpointIndex));
+	}
+}
@@ -7,314 +7,639 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
- * CyclingPortal is an implementation of the CyclingPortalInterface interface.
+ * CyclingPortal is an implementation of the CyclingPortalInterface interface,
+ * extended with the leaderboard queries of LeaderboardPortalInterface.
  * @author Diogo Pacheco, 710010983, 710029379
  * @version 1.1
  *
  */
-public class CyclingPortal implements CyclingPortalInterface {
+public class CyclingPortal implements LeaderboardPortalInterface {
 
 	ArrayList<Race> allRaces = new ArrayList<Race>(); // A list of all Race objects 
 	ArrayList<Stage> allStages = new ArrayList<Stage>(); // A list of all Stage objects
 	ArrayList<Segment> allSegments = new ArrayList<Segment>(); // A list of all Segment objects
 	ArrayList<Team> allTeams = new ArrayList<Team>(); // A list of all Team objects
 	ArrayList<Rider> allRiders = new ArrayList<Rider>(); // A list of all Rider objects
-	ArrayList<StageResult> allStageResults = new ArrayList<StageResult>(); // A list of all StageResult objects
+	IntObjectMap<Race> raceIndex = new IntObjectMap<Race>(); // Race objects indexed by race ID
+	IntObjectMap<Stage> stageIndex = new IntObjectMap<Stage>(); // Stage objects indexed by stage ID
+	IntObjectMap<Segment> segmentIndex = new IntObjectMap<Segment>(); // Segment objects indexed by segment ID
+	IntObjectMap<Team> teamIndex = new IntObjectMap<Team>(); // Team objects indexed by team ID
+	IntObjectMap<Rider> riderIndex = new IntObjectMap<Rider>(); // Rider objects indexed by rider ID
+	IntObjectMap<RaceResults> raceResults = new IntObjectMap<RaceResults>(); // StageResult objects of each race, stored column by column and indexed by stage and rider IDs
+	IntObjectMap<StageClassification> stageClassifications = new IntObjectMap<StageClassification>(); // StageResult objects of each stage, kept ranked by elapsed time
+	IntObjectMap<RaceClassification> raceClassifications = new IntObjectMap<RaceClassification>(); // General classification of each race, updated one stage at a time
+	IntObjectMap<LiveStage> liveStages = new IntObjectMap<LiveStage>(); // Checkpoints of each stage recorded one at a time, ranked at each checkpoint
+	HashMap<String, Race> raceNameIndex = new HashMap<String, Race>(); // Race objects indexed by their case-sensitive name
+	HashMap<String, Stage> stageNameIndex = new HashMap<String, Stage>(); // Stage objects indexed by their case-sensitive name
+	HashMap<String, Team> teamNameIndex = new HashMap<String, Team>(); // Team objects indexed by their case-sensitive name
+	ScoringEngine scoring = new ScoringEngine(ScoringScheme.STANDARD); // Awards points from the tables of the current scoring scheme
+	IdSequence raceIDs = new IdSequence(); // Allocates the IDs of new races
+	IdSequence stageIDs = new IdSequence(); // Allocates the IDs of new stages
+	IdSequence segmentIDs = new IdSequence(); // Allocates the IDs of new segments
+	IdSequence teamIDs = new IdSequence(); // Allocates the IDs of new teams
+	IdSequence riderIDs = new IdSequence(); // Allocates the IDs of new riders
+	transient ForkJoinPool stagePool; // Brings the stages of a race up to date in parallel, or null to do it on the calling thread
 	// When we delete a Race, it must be removed from the above list.
 	// When we delete a Stage, it must be removed from the above list AND the list within the race object
 	// When we delete a Segment, it must be removed from the above list AND the list within the stage object
+	// Every list of entities has a matching index, which must be updated alongside it.
+	// Every race has its results and classification, and every stage its classification, from creation to removal,
+	// so registering and querying results in one race never changes the maps shared with other races.
+
+	/**
+	 * Constructor for CyclingPortal. The stages of a race are brought up to
+	 * date in parallel on the common fork/join pool.
+	 */
+	public CyclingPortal() {
+		stagePool = ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Constructor for CyclingPortal, with its own pool of threads to bring the
+	 * stages of a race up to date in parallel. The pool is released by
+	 * {@link #shutdown()}.
+	 * @param parallelism The number of stages brought up to date at once.
+	 * 1 or less brings them up to date one after another on the calling thread.
+	 */
+	public CyclingPortal(int parallelism) {
+		stagePool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+	}
+
+	/**
+	 * Shuts down the pool of threads the portal created for itself, if any,
+	 * once the tasks already given to it are done. The common fork/join pool
+	 * is never shut down. The portal can still be used afterwards, bringing
+	 * stages up to date on the calling thread.
+	 */
+	public void shutdown() {
+		if (stagePool != null && stagePool != ForkJoinPool.commonPool()) {
+			stagePool.shutdown(); // lets its idle worker threads end
+			stagePool = null;
+		}
+	}
+
+	/**
+	 * Restores a portal written with Java serialization. Its pool of threads is
+	 * not written, so the stages of its races are brought up to date on the
+	 * common fork/join pool.
+	 * @param input The stream the portal is read from.
+	 * @throws IOException If there is a problem reading the stream.
+	 * @throws ClassNotFoundException If the class of a serialised object cannot be found.
+	 */
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+		input.defaultReadObject();
+		stagePool = ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Replaces the points tables used to award points and mountain points.
+	 * The points of every stage are awarded again from the new tables
+	 * the next time they are queried.
+	 * @param scheme The scoring scheme to award points with.
+	 */
+	public void setScoringScheme(ScoringScheme scheme) {
+		scoring = new ScoringEngine(scheme);
+		for (Stage stage: allStages) {
+			invalidateScores(stage);
+		}
+	}
+
+	/**
+	 * Recomputes every classification of every race from its results, e.g.
+	 * after a bulk import or after loading a portal. Each stage and each race
+	 * is a task on the work-stealing pool of the portal. The tasks of the
+	 * stages run in parallel, and the task of a race runs as soon as the
+	 * tasks of all its stages are done, merging them into its classifications.
+	 * @return How long each task, and the whole recomputation, took.
+	 */
+	public RecomputeReport recomputeAllClassifications() {
+		Executor executor = stagePool != null ? stagePool : Runnable::run; // runs every task in turn without a pool
+		RecomputeReport report = new RecomputeReport();
+		long start = System.nanoTime();
+		ArrayList<CompletableFuture<Void>> raceTasks = new ArrayList<CompletableFuture<Void>>();
+		for (Race race: allRaces) {
+			RaceClassification classification = raceClassifications.get(race.getRaceID());
+			RecomputeReport.Task raceTask = report.addTask(true, race.getRaceID());
+			int[] stageIds = race.getStageIDs();
+			StageResult[][] ranked = new StageResult[stageIds.length][];
+			CompletableFuture<?>[] stageTasks = new CompletableFuture<?>[stageIds.length];
+			for (int i = 0; i < stageIds.length; i++) {
+				int index = i;
+				RecomputeReport.Task stageTask = report.addTask(false, stageIds[i]);
+				stageClassifications.get(stageIds[i]).invalidate();
+				stageTasks[i] = CompletableFuture.runAsync(() -> {
+					long taskStart = System.nanoTime();
+					ranked[index] = updateStage(stageIds[index]);
+					stageTask.setNanos(System.nanoTime() - taskStart);
+				}, executor);
+			}
+			raceTasks.add(CompletableFuture.allOf(stageTasks).thenRunAsync(() -> {
+				long taskStart = System.nanoTime();
+				classification.apply(stageIds, ranked); // replaces what every stage contributed
+				raceTask.setNanos(System.nanoTime() - taskStart);
+			}, executor));
+		}
+		CompletableFuture.allOf(raceTasks.toArray(new CompletableFuture<?>[0])).join();
+		report.setNanos(System.nanoTime() - start);
+		return report;
+	}
+
+	/**
+	 * Returns whether the cached adjusted elapsed times of a stage are up to
+	 * date, so that querying them stores nothing.
+	 * @param stageId The ID of the stage.
+	 * @return True if the adjusted elapsed times have nothing to bring up to
+	 * date, including when the stage does not exist.
+	 */
+	boolean isStageAdjusted(int stageId) {
+		StageClassification classification = stageClassifications.get(stageId);
+		return classification == null || classification.isAdjusted();
+	}
+
+	/**
+	 * Returns whether the cached points of a stage are up to date, so that
+	 * querying them stores nothing.
+	 * @param stageId The ID of the stage.
+	 * @return True if the points and mountain points have nothing to bring up
+	 * to date, including when the stage does not exist.
+	 */
+	boolean isStageScored(int stageId) {
+		StageClassification classification = stageClassifications.get(stageId);
+		return classification == null || classification.isScored();
+	}
+
+	/**
+	 * Returns whether the classifications of a race are up to date, so that
+	 * querying the race stores nothing.
+	 * @param raceId The ID of the race.
+	 * @return True if the race has nothing to bring up to date, including
+	 * when it does not exist.
+	 */
+	boolean isRaceUpToDate(int raceId) {
+		if (!raceIndex.containsKey(raceId)) {
+			return true;
+		}
+		return raceClassifications.get(raceId).isUpToDate();
+	}
+
+	/**
+	 * Resolves a race ID through the race index.
+	 * @param raceId The ID of the race.
+	 * @return The race with the given ID.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the system.
+	 */
+	private Race findRace(int raceId) throws IDNotRecognisedException {
+		Race race = raceIndex.get(raceId);
+		if (race == null) {
+			throw new IDNotRecognisedException("ID does not match any race in the system."); // thrown if ID is invalid
+		}
+		return race;
+	}
+
+	/**
+	 * Resolves a stage ID through the stage index.
+	 * @param stageId The ID of the stage.
+	 * @return The stage with the given ID.
+	 * @throws IDNotRecognisedException If the ID does not match any stage in the system.
+	 */
+	private Stage findStage(int stageId) throws IDNotRecognisedException {
+		Stage stage = stageIndex.get(stageId);
+		if (stage == null) {
+			throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		}
+		return stage;
+	}
+
+	/**
+	 * Resolves a segment ID through the segment index.
+	 * @param segmentId The ID of the segment.
+	 * @return The segment with the given ID.
+	 * @throws IDNotRecognisedException If the ID does not match any segment in the system.
+	 */
+	private Segment findSegment(int segmentId) throws IDNotRecognisedException {
+		Segment segment = segmentIndex.get(segmentId);
+		if (segment == null) {
+			throw new IDNotRecognisedException("ID does not match any segment in the system."); // thrown if ID is invalid
+		}
+		return segment;
+	}
+
+	/**
+	 * Resolves a team ID through the team index.
+	 * @param teamId The ID of the team.
+	 * @return The team with the given ID.
+	 * @throws IDNotRecognisedException If the ID does not match any team in the system.
+	 */
+	private Team findTeam(int teamId) throws IDNotRecognisedException {
+		Team team = teamIndex.get(teamId);
+		if (team == null) {
+			throw new IDNotRecognisedException("ID does not match any team in the system."); // thrown if ID is invalid
+		}
+		return team;
+	}
+
+	/**
+	 * Resolves a rider ID through the rider index.
+	 * @param riderId The ID of the rider.
+	 * @return The rider with the given ID.
+	 * @throws IDNotRecognisedException If the ID does not match any rider in the system.
+	 */
+	private Rider findRider(int riderId) throws IDNotRecognisedException {
+		Rider rider = riderIndex.get(riderId);
+		if (rider == null) {
+			throw new IDNotRecognisedException("ID does not match any rider in the system."); // thrown if ID is invalid
+		}
+		return rider;
+	}
+
+	/**
+	 * Returns the results of a stage in the order kept by its classification.
+	 * @param stageId The ID of the stage.
+	 * @return The results of the stage, from the fastest to the slowest. Empty if it has none.
+	 */
+	private StageResult[] rankResultsInStage(int stageId) {
+		StageClassification classification = stageClassifications.get(stageId);
+		if (classification == null) {
+			return new StageResult[0];
+		}
+		return classification.getRankedResults();
+	}
+
+	/**
+	 * Stores the adjusted elapsed time of every rider in a stage in one sweep
+	 * over its classification, unless they are already up to date. When they
+	 * are, nothing is read, so callers can then read only the results they need.
+	 * @param stageId The ID of a stage in the system.
+	 */
+	private void adjustResultsInStage(int stageId) {
+		StageClassification classification = stageClassifications.get(stageId);
+		if (classification != null) {
+			classification.adjustElapsedTimes(stageIndex.get(stageId).getStageType() == StageType.TT);
+		}
+	}
+
+	/**
+	 * Returns a range of the ranked results of a stage.
+	 * @param stageId The ID of a stage in the system.
+	 * @param offset The position of the first result, where 0 is the fastest rider.
+	 * @param limit The maximum number of results.
+	 * @return The results in the range, from the fastest to the slowest.
+	 */
+	private StageResult[] rankResultsInStage(int stageId, int offset, int limit) {
+		StageClassification classification = stageClassifications.get(stageId);
+		if (classification == null) {
+			return new StageResult[0];
+		}
+		return classification.getResults(offset, endOf(offset, limit));
+	}
+
+	/**
+	 * Returns the end of a range of positions given by an offset and a limit,
+	 * without overflowing when the limit is large.
+	 * @param offset The first position of the range.
+	 * @param limit The maximum number of positions in the range.
+	 * @return The last position of the range, exclusive.
+	 */
+	private static int endOf(int offset, int limit) {
+		return (int) Math.min((long) Math.max(offset, 0) + Math.max(limit, 0), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Looks up the result of a rider in a stage through the results of its race.
+	 * @param stage The stage.
+	 * @param riderId The ID of the rider.
+	 * @return The result of the rider in the stage, or null if there is none.
+	 */
+	private StageResult getResult(Stage stage, int riderId) {
+		return raceResults.get(stage.getRaceID()).get(stage.getStageID(), riderId);
+	}
+
+	/**
+	 * Adds a result to the classification of its stage.
+	 * @param result The result to be classified.
+	 */
+	private void indexResult(StageResult result) {
+		stageClassifications.get(result.getStageID()).add(result); // O(log n), keeps the stage ranked
+		raceClassifications.get(result.getRaceID()).invalidate(result.getStageID());
+	}
+
+	/**
+	 * Removes a result from the classification of its stage and from the
+	 * results of its race.
+	 * @param result The result to be removed.
+	 */
+	private void removeResult(StageResult result) {
+		stageClassifications.get(result.getStageID()).remove(result);
+		raceClassifications.get(result.getRaceID()).invalidate(result.getStageID());
+		liveStages.get(result.getStageID()).remove(result); // if its checkpoints were recorded one at a time
+		raceResults.get(result.getRaceID()).remove(result);
+	}
+
+	/**
+	 * Marks the points of a stage as out of date, in the stage and in the
+	 * classifications of its race.
+	 * @param stage The stage whose points tables or segments changed.
+	 */
+	private void invalidateScores(Stage stage) {
+		StageClassification classification = stageClassifications.get(stage.getStageID());
+		if (classification != null) {
+			classification.invalidateScores();
+			raceClassifications.get(stage.getRaceID()).invalidate(stage.getStageID());
+		}
+	}
+
+	/**
+	 * Returns the IDs of the riders of a list of standings.
+	 * @param standings The standings, in classification order.
+	 * @return The IDs of the riders, in the same order.
+	 */
+	private static int[] riderIDsOf(ArrayList<RaceClassification.Standing> standings) {
+		int[] riderIDs = new int[standings.size()];
+		for (int i = 0; i < riderIDs.length; i++) {
+			riderIDs[i] = standings.get(i).getRiderID();
+		}
+		return riderIDs;
+	}
+
+	/**
+	 * Brings the classifications of a race up to date by applying the
+	 * adjusted elapsed times and points of the stages that changed since the
+	 * last query. Stages that did not change are not visited. The stages are
+	 * independent, so when several changed they are brought up to date in
+	 * parallel, and their changes are then merged into the race in one pass.
+	 * @param raceId The ID of a race in the system.
+	 * @return The up to date classifications of the race.
+	 */
+	private RaceClassification classifyRace(int raceId) {
+		RaceClassification classification = raceClassifications.get(raceId);
+		int[] stageIds = classification.getStaleStageIDs();
+		StageResult[][] ranked = new StageResult[stageIds.length][];
+		if (stagePool == null || stageIds.length < 2) {
+			for (int i = 0; i < stageIds.length; i++) {
+				ranked[i] = updateStage(stageIds[i]);
+			}
+		} else {
+			ArrayList<ForkJoinTask<StageResult[]>> tasks = new ArrayList<ForkJoinTask<StageResult[]>>();
+			for (int stageId: stageIds) {
+				tasks.add(stagePool.submit(() -> updateStage(stageId))); // each stage only writes its own rows
+			}
+			for (int i = 0; i < stageIds.length; i++) {
+				ranked[i] = tasks.get(i).join();
+			}
+		}
+		if (stageIds.length > 0) {
+			classification.apply(stageIds, ranked);
+		}
+		return classification;
+	}
+
+	/**
+	 * Brings the adjusted elapsed times and points of a stage up to date.
+	 * @param stageId The ID of a stage in the system.
+	 * @return The results of the stage, from the fastest to the slowest.
+	 */
+	private StageResult[] updateStage(int stageId) {
+		adjustResultsInStage(stageId);
+		scoreStage(stageIndex.get(stageId));
+		return rankResultsInStage(stageId);
+	}
+
+	/**
+	 * Removes a stage and its segments from the lists and indexes of the portal,
+	 * along with every result registered in the stage.
+	 * The stage is not detached from its race.
+	 * @param stage The stage to be removed.
+	 */
+	private void discardStage(Stage stage) {
+		StageClassification classification = stageClassifications.remove(stage.getStageID());
+		RaceResults results = raceResults.get(stage.getRaceID());
+		for (StageResult result: classification.getRankedResults()) {
+			riderIndex.get(result.getRiderID()).removeStageResult(result);
+			results.remove(result); // removes result of stage from the results of the race
+		}
+		raceClassifications.get(stage.getRaceID()).removeStage(stage.getStageID());
+		liveStages.remove(stage.getStageID());
+		for (Segment segment: stage.getSegments()) {
+			segmentIndex.remove(segment.getSegmentID());
+		}
+		allSegments.removeAll(stage.getSegments());
+		stageIndex.remove(stage.getStageID());
+		stageNameIndex.remove(stage.getName());
+		allStages.remove(stage);
+	}
 
 
 	@Override
 	public int[] getRaceIds() {
-		return Race.getRaceIDs();  // returns race ids
+		int[] raceIds = new int[allRaces.size()];
+		for (int i = 0; i < raceIds.length; i++) {
+			raceIds[i] = allRaces.get(i).getRaceID();
+		}
+		return raceIds;  // returns race ids
 	}
 
 	@Override
 	public int createRace(String name, String description) throws IllegalNameException, InvalidNameException {
-		for (Race e:allRaces) {
-			if (e.getName() == name) {
-				throw new IllegalNameException("This race name already exists in the system."); // check if name exists
-			}
+		if (raceNameIndex.containsKey(name)) {
+			throw new IllegalNameException("This race name already exists in the system."); // check if name exists
 		}
-		if (name.length() > 30 || name.isEmpty() || name == null || name.contains(" ")) { // Check if name violates rules
+		if (name == null || name.length() > 30 || name.isEmpty() || name.contains(" ")) { // Check if name violates rules
 			throw new InvalidNameException("Invalid race name entered.");
 		} else {
-			allRaces.add(new Race(name, description));
-			return allRaces.get(allRaces.size() - 1).getRaceID();
+			Race race = new Race(raceIDs.next(), name, description);
+			allRaces.add(race);
+			raceIndex.put(race.getRaceID(), race);
+			raceNameIndex.put(name, race);
+			raceResults.put(race.getRaceID(), new RaceResults());
+			raceClassifications.put(race.getRaceID(), new RaceClassification());
+			return race.getRaceID();
 		}
 	}
 
 	@Override
 	public String viewRaceDetails(int raceId) throws IDNotRecognisedException {
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				return race.toString();
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any race in the system."); // thrown if ID is invalid
+		return findRace(raceId).toString();
 	}
 
 	@Override
 	public void removeRaceById(int raceId) throws IDNotRecognisedException {
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				ArrayList<StageResult> resultsToBeRemoved = new ArrayList<>();
-				Race.removeRaceID(raceId);
-				allStages.removeAll(race.getAllStages()); // 
-				race.removeAllStages();
-				for (StageResult result: allStageResults) {
-					if (result.getRaceID() == raceId) {
-						resultsToBeRemoved.add(result);
-					}
-				}
-				allRaces.remove(race);
-				allStageResults.removeAll(resultsToBeRemoved);  // removes results of race from allStageResults
-				return;
-			}			
-		}
-		throw new IDNotRecognisedException("ID does not match any race in the system."); // thrown if ID is invalid
+		Race race = findRace(raceId);
+		for (Stage stage: race.getAllStages()) {
+			discardStage(stage); // removes stages, their segments and their results from the portal
+		}
+		race.removeAllStages();
+		allRaces.remove(race);
+		raceIndex.remove(raceId);
+		raceResults.remove(raceId);
+		raceClassifications.remove(raceId);
+		raceNameIndex.remove(race.getName());
 	}
 
 	@Override
 	public int getNumberOfStages(int raceId) throws IDNotRecognisedException {
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				return race.getNumberOfStages(); // if raceID matches, return number of stages for the race
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any race in the system."); // thrown if ID is invalid
+		return findRace(raceId).getNumberOfStages(); // return number of stages for the race
 	}
 
 	@Override
 	public int addStageToRace(int raceId, String stageName, String description, double length, LocalDateTime startTime,
 			StageType type)
 			throws IDNotRecognisedException, IllegalNameException, InvalidNameException, InvalidLengthException {
-		Boolean IDRecognised = false;
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				IDRecognised = true;
-			}
+		Race race = findRace(raceId);
+		if (stageNameIndex.containsKey(stageName)) {
+			throw new IllegalNameException("This stage name already exists in the system."); // thrown if stage name already exists
 		}
-		if (IDRecognised == false) {
-			throw new IDNotRecognisedException("ID does not match any race in the system."); // thrown if ID is invalid
-		}
-		for (Stage e:allStages) {
-			if (e.getName() == stageName) {
-				throw new IllegalNameException("This stage name already exists in the system."); // thrown if stage name already exists
-			}
-		}
-		if (stageName.length() > 30 || stageName.isEmpty() || stageName == null) { // check if name violates rules
+		if (stageName == null || stageName.length() > 30 || stageName.isEmpty()) { // check if name violates rules
 			throw new InvalidNameException(("Invalid stage name entered."));
 		}
 		if (length < 5.0d) { // check if length is too short
 			throw new InvalidLengthException("The length entered is less than 5km.");
 		}
-		allStages.add(new Stage(raceId, stageName, description, length, startTime, type));
-		for (Race race:allRaces) {
-			if (race.getRaceID() == raceId) {
-				race.addStage(allStages.get(allStages.size() - 1)); // adds stage to race
-			}
-		}
-		return allStages.get(allStages.size() - 1).getStageID(); // return stageID 
+		Stage stage = new Stage(stageIDs.next(), raceId, stageName, description, length, startTime, type);
+		allStages.add(stage);
+		stageIndex.put(stage.getStageID(), stage);
+		stageNameIndex.put(stageName, stage);
+		stageClassifications.put(stage.getStageID(), new StageClassification());
+		liveStages.put(stage.getStageID(), new LiveStage());
+		race.addStage(stage); // adds stage to race
+		return stage.getStageID(); // return stageID 
 	}
 
 	@Override
 	public int[] getRaceStages(int raceId) throws IDNotRecognisedException {
-		for (Race race:allRaces) {
-			if (race.getRaceID() == raceId) {
-				return race.getStageIDs(); // return stageIDs within a race
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any race in the system."); // thrown if ID is invalid
+		return findRace(raceId).getStageIDs(); // return stageIDs within a race
 	}
 
 	@Override
 	public double getStageLength(int stageId) throws IDNotRecognisedException {
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				return stage.getLength(); // return stage length
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		return findStage(stageId).getLength(); // return stage length
 	}
 
 	@Override
 	public void removeStageById(int stageId) throws IDNotRecognisedException {
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				for (Race race: allRaces) {
-					if (stage.getRaceID() == race.getRaceID()) {
-						Stage.removeStageID(stageId);
-						race.removeStage(stage);
-					}
-				}
-				allStages.remove(stage);
-				return; // removes stage then breaks out to make sure exception isn't unncessarily thrown
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		Stage stage = findStage(stageId);
+		raceIndex.get(stage.getRaceID()).removeStage(stage);
+		discardStage(stage); // removes stage and its segments from the portal
 	}
 
 	@Override
 	public int addCategorizedClimbToStage(int stageId, Double location, SegmentType type, Double averageGradient,
 			Double length) throws IDNotRecognisedException, InvalidLocationException, InvalidStageStateException,
 			InvalidStageTypeException {
-		Boolean IDRecognised = false;
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				IDRecognised = true;
-				if (0 >= location || location > stage.getLength()) {
-					throw new InvalidLocationException("Location falls outside of bounds of stage."); // check if location is invalid
-				}
-				if (stage.getStageState() == StageState.WAITING_FOR_RESULTS) {
-					throw new InvalidStageStateException("Stage is waiting for results."); // check stage state
-				}
-				if (stage.getStageType() == StageType.TT) { // check stage type
-					throw new InvalidStageTypeException("You have attempted to add segment to a time trial stage.");
-				}
-			}
+		Stage stage = findStage(stageId);
+		if (0 >= location || location > stage.getLength()) {
+			throw new InvalidLocationException("Location falls outside of bounds of stage."); // check if location is invalid
 		}
-		if (IDRecognised == false) {
-			throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		if (stage.getStageState() == StageState.WAITING_FOR_RESULTS) {
+			throw new InvalidStageStateException("Stage is waiting for results."); // check stage state
 		}
-
-		allSegments.add(new Segment(stageId, location, type, averageGradient, length));
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				stage.addSegment(allSegments.get(allSegments.size() - 1)); // add categorized climb segment to stage
-			}
+		if (stage.getStageType() == StageType.TT) { // check stage type
+			throw new InvalidStageTypeException("You have attempted to add segment to a time trial stage.");
 		}
-		return allSegments.get(allSegments.size() - 1).getSegmentID(); // return segmentID
+
+		Segment segment = new Segment(segmentIDs.next(), stageId, location, type, averageGradient, length);
+		allSegments.add(segment);
+		segmentIndex.put(segment.getSegmentID(), segment);
+		stage.addSegment(segment); // add categorized climb segment to stage
+		return segment.getSegmentID(); // return segmentID
 
 	}
 
 	@Override
 	public int addIntermediateSprintToStage(int stageId, double location) throws IDNotRecognisedException,
 			InvalidLocationException, InvalidStageStateException, InvalidStageTypeException {
-		Boolean IDRecognised = false;
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				IDRecognised = true;
-				if (0 >= location || location > stage.getLength()) {
-					throw new InvalidLocationException("Location falls outside of bounds of stage."); // check if location is invalid
-				}
-				if (stage.getStageState() == StageState.WAITING_FOR_RESULTS) {
-					throw new InvalidStageStateException("Stage is waiting for results."); // check stage state
-				}
-				if (stage.getStageType() == StageType.TT) { // check stage type
-					throw new InvalidStageTypeException("You have attempted to add segment to a time trial stage.");
-				}
-			}
+		Stage stage = findStage(stageId);
+		if (0 >= location || location > stage.getLength()) {
+			throw new InvalidLocationException("Location falls outside of bounds of stage."); // check if location is invalid
 		}
-		if (IDRecognised == false) {
-			throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		if (stage.getStageState() == StageState.WAITING_FOR_RESULTS) {
+			throw new InvalidStageStateException("Stage is waiting for results."); // check stage state
 		}
-		
-		allSegments.add(new Segment(stageId, location));
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				stage.addSegment(allSegments.get(allSegments.size() - 1)); // add intermediate sprint segment to stage
-			}
+		if (stage.getStageType() == StageType.TT) { // check stage type
+			throw new InvalidStageTypeException("You have attempted to add segment to a time trial stage.");
 		}
-		return allSegments.get(allSegments.size() - 1).getSegmentID(); // return segmentID
+		
+		Segment segment = new Segment(segmentIDs.next(), stageId, location);
+		allSegments.add(segment);
+		segmentIndex.put(segment.getSegmentID(), segment);
+		stage.addSegment(segment); // add intermediate sprint segment to stage
+		return segment.getSegmentID(); // return segmentID
 	}
 
 	@Override
 	public void removeSegment(int segmentId) throws IDNotRecognisedException, InvalidStageStateException {
-		for (Segment segment: allSegments) {
-			if (segment.getSegmentID() == segmentId) {
-				for (Stage stage: allStages) {
-					if (segment.getStageID() == stage.getStageID()) {
-						Segment.removeSegmentID(segmentId);
-						stage.removeSegment(segment);
-					}
-				}
-				allSegments.remove(segment);
-				return; // remove segment from everywhere then break out of method to avoid
-				        // unnecessarily triggering exception
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any segment in the system."); // thrown if ID is invalid
+		Segment segment = findSegment(segmentId);
+		Stage stage = stageIndex.get(segment.getStageID());
+		if (stage.getStageState() == StageState.WAITING_FOR_RESULTS) {
+			throw new InvalidStageStateException("Stage is waiting for results."); // check stage state
+		}
+		stage.removeSegment(segment);
+		allSegments.remove(segment);
+		segmentIndex.remove(segmentId); // remove segment from everywhere
 	}
 
 	@Override
 	public void concludeStagePreparation(int stageId) throws IDNotRecognisedException, InvalidStageStateException {
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				if (stage.getStageState() == StageState.WAITING_FOR_RESULTS) {
-					throw new InvalidStageStateException("Stage is already concluded."); // check if stage has already concluded
-				} else {
-					stage.changeState(StageState.WAITING_FOR_RESULTS);
-					assert stage.getStageState() != StageState.WAITING_FOR_RESULTS; // Assertion to ensure state is correct
-					return; // change state then break out to avoid triggering exception
-				}
-			}
+		Stage stage = findStage(stageId);
+		if (stage.getStageState() == StageState.WAITING_FOR_RESULTS) {
+			throw new InvalidStageStateException("Stage is already concluded."); // check if stage has already concluded
 		}
-		throw new IDNotRecognisedException("ID does not match any stage in the system.");
+		stage.changeState(StageState.WAITING_FOR_RESULTS);
+		assert stage.getStageState() == StageState.WAITING_FOR_RESULTS; // Assertion to ensure state is correct
 	}
 
 	@Override
 	public int[] getStageSegments(int stageId) throws IDNotRecognisedException {
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				return stage.getSegmentIDs(); // return array of segmentIDs for stage
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		return findStage(stageId).getSegmentIDs(); // return array of segmentIDs for stage
 	}
 
 	@Override
 	public int createTeam(String name, String description) throws IllegalNameException, InvalidNameException {
-		for (Team team: allTeams) {
-			if (team.getName() == name) { // check if team exists
-				throw new IllegalNameException("This team name already exists in the system.");
-			}
+		if (teamNameIndex.containsKey(name)) { // check if team exists
+			throw new IllegalNameException("This team name already exists in the system.");
 		}
-		if (name.length() > 30 || name.isEmpty() || name == null) {
+		if (name == null || name.length() > 30 || name.isEmpty()) {
 			throw new InvalidNameException("Invalid team name entered."); // check if name breaks rules
 		} else {
-			allTeams.add(new Team(name, description)); // add team
-			return allTeams.get(allTeams.size() - 1).getTeamID(); // return teamID
+			Team team = new Team(teamIDs.next(), name, description);
+			allTeams.add(team); // add team
+			teamIndex.put(team.getTeamID(), team);
+			teamNameIndex.put(name, team);
+			return team.getTeamID(); // return teamID
 		}
 	}
 
 	@Override
 	public void removeTeam(int teamId) throws IDNotRecognisedException {
-		for (Team team: allTeams) {
-			if (team.getTeamID() == teamId) {
-				Team.removeTeamID(teamId);
-				allTeams.remove(team);
-				return; // remove team from everywhere then break out of method to avoid
-				        // unnecessarily triggering exception
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any team in the system."); // thrown if ID is invalid
+		Team team = findTeam(teamId);
+		allTeams.remove(team);
+		teamIndex.remove(teamId);
+		teamNameIndex.remove(team.getName()); // remove team from everywhere
 	}
 
 	@Override
 	public int[] getTeams() {
-		return Team.getTeamIDs(); // return teamIDs
+		int[] teamIds = new int[allTeams.size()];
+		for (int i = 0; i < teamIds.length; i++) {
+			teamIds[i] = allTeams.get(i).getTeamID();
+		}
+		return teamIds; // return teamIDs
 	}
 
 	@Override
 	public int[] getTeamRiders(int teamId) throws IDNotRecognisedException {
-		for (Team team: allTeams) {
-			if (team.getTeamID() == teamId) {
-				return team.getRiderIDs(); // return riderIDs
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any team in the system."); // thrown if ID is invalid
+		return findTeam(teamId).getRiderIDs(); // return riderIDs
 	}
 
 	@Override
@@ -326,434 +651,431 @@ public class CyclingPortal implements CyclingPortalInterface {
 		if (yearOfBirth < 1900) { // check if invalid year of birth
 			throw new IllegalArgumentException("Invalid year of birth entered.");
 		}
-		for (Team team: allTeams) {
-			if (team.getTeamID() == teamID) {
-				allRiders.add(new Rider(teamID, name, yearOfBirth));
-				team.addRider(allRiders.get(allRiders.size() - 1));
-				return allRiders.get(allRiders.size() - 1).getRiderID(); // create rider then return their ID
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any team in the system."); // thrown if ID is invalid
+		Team team = findTeam(teamID);
+		Rider rider = new Rider(riderIDs.next(), teamID, name, yearOfBirth);
+		allRiders.add(rider);
+		riderIndex.put(rider.getRiderID(), rider);
+		team.addRider(rider);
+		return rider.getRiderID(); // create rider then return their ID
 	}
 
 	@Override
 	public void removeRider(int riderId) throws IDNotRecognisedException {
-		ArrayList<StageResult> resultsToBeRemoved = new ArrayList<>();
-		for (Rider rider: allRiders) {
-			if (rider.getRiderID() == riderId) {
-				for (Team team: allTeams) {
-					if (rider.getTeamID() == team.getTeamID()) {
-						for (StageResult result: allStageResults) {
-							if (result.getRiderID() == rider.getRiderID()) {
-								resultsToBeRemoved.add(result); // remove results of rider
-							}
-						}
-						Rider.removeRiderID(riderId);
-						team.removeRider(rider);
-					} 
-				}
-				allRiders.remove(rider);
-				allStageResults.removeAll(resultsToBeRemoved);
-				assert allRiders.contains(rider) == false;
-				return; // remove all of the details, results and associations of a rider
-				        // then break out
+		Rider rider = findRider(riderId);
+		Team team = teamIndex.get(rider.getTeamID());
+		if (team != null) {
+			team.removeRider(rider);
+		}
+		allRiders.remove(rider);
+		riderIndex.remove(riderId);
+		for (StageResult result: rider.getStageResults()) {
+			removeResult(result); // remove results of rider
+		}
+		for (int stageId: rider.getLiveStageIDs()) {
+			LiveStage live = liveStages.get(stageId); // null if the stage was removed since
+			if (live != null) {
+				live.remove(riderId); // remove checkpoints of stages the rider has not finished
 			}
 		}
-		throw new IDNotRecognisedException("ID does not match any rider in the system."); // thrown if ID is invalid
+		assert allRiders.contains(rider) == false;
+		// remove all of the details, results and associations of a rider
 	}
 
 	@Override
 	public void registerRiderResultsInStage(int stageId, int riderId, LocalTime... checkpoints)
 			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
 			InvalidStageStateException {
-		boolean stageIDrecognised = false;
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				if (stage.getStageState() != StageState.WAITING_FOR_RESULTS) { // check stage state
-					throw new InvalidStageStateException("Stage is not accepting results at this time.");
-				}
-				if (stage.getNumberOfSegments() + 2 != checkpoints.length) { // check length of checkpoints array
-					throw new InvalidCheckpointsException("Invalid number of checkpoints.");
-				}
-				stageIDrecognised = true;
-			}
+		Stage stage = findStage(stageId);
+		if (stage.getStageState() != StageState.WAITING_FOR_RESULTS) { // check stage state
+			throw new InvalidStageStateException("Stage is not accepting results at this time.");
+		}
+		checkCheckpoints(stage, checkpoints); // check length of checkpoints array
+		Rider rider = findRider(riderId);
+		if (getResult(stage, riderId) != null) {
+			throw new DuplicatedResultException("Rider already has results registered for this stage."); 
+			// thrown if rider already has results registered for a stage
+		}
+		StageResult result = raceResults.get(stage.getRaceID()).add(stageId, riderId, stage.getRaceID(),
+				StageResult.computeIntElapsedTime(checkpoints), StageResult.toSecondsOfDay(checkpoints));
+		indexResult(result);
+		rider.addStageResult(result); // add stage result for the rider
+	}
+
+	/**
+	 * Records the time a rider passed one checkpoint of a stage, while the
+	 * stage is being raced. The rider is ranked at the checkpoint at once, so
+	 * the order of the field there can be published before anyone finishes.
+	 * Once every checkpoint of the rider is recorded, whichever came last, they
+	 * are registered as the result of the rider in the stage, exactly as by
+	 * {@link #registerRiderResultsInStage(int, int, LocalTime...)}.
+	 * @param stageId The ID of the stage being raced.
+	 * @param riderId The ID of the rider.
+	 * @param checkpointIndex The index of the checkpoint: 0 for the start, 1 to
+	 * the number of segments for each segment of the stage in order, and one
+	 * more for the finish line.
+	 * @param time The time at which the rider passed the checkpoint.
+	 * @throws IDNotRecognisedException If the ID of the stage or rider does not
+	 * match anything in the system.
+	 * @throws DuplicatedResultException Thrown if the rider already has a result
+	 * for the stage, or already has the checkpoint recorded.
+	 * @throws InvalidCheckpointsException Thrown if the index is not a checkpoint
+	 * of the stage, if there is no time, or if the time is not after every
+	 * earlier checkpoint and before every later checkpoint of the rider.
+	 * @throws InvalidStageStateException Thrown if the stage is not "waiting
+	 * for results".
+	 */
+	public void recordCheckpoint(int stageId, int riderId, int checkpointIndex, LocalTime time)
+			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
+			InvalidStageStateException {
+		Stage stage = findStage(stageId);
+		if (stage.getStageState() != StageState.WAITING_FOR_RESULTS) { // check stage state
+			throw new InvalidStageStateException("Stage is not accepting results at this time.");
 		}
-		if (stageIDrecognised == false) {
-			throw new IDNotRecognisedException("ID does not match any stage in the system."); //thrown if ID is invalid
+		int count = stage.getNumberOfSegments() + 2;
+		if (checkpointIndex < 0 || checkpointIndex >= count || time == null) { // check the checkpoint is in the stage
+			throw new InvalidCheckpointsException("Invalid checkpoint.");
 		}
-		for (Rider rider: allRiders) {
-			if (rider.getRiderID() == riderId) {
-				for (StageResult result: rider.getStageResults()) {
-					if (result.getStageID() == stageId) {
-						throw new DuplicatedResultException("Rider already has results registered for this stage."); 
-						// thrown if rider already has results registered for a stage
-					}
-				}
-				for (Stage stage: allStages) {
-					if (stage.getStageID() == stageId) {
-						int raceID = stage.getRaceID();
-						allStageResults.add(new StageResult(stageId, riderId, raceID, checkpoints));
-						if (rider.getRiderID() == riderId) {
-							rider.addStageResult(allStageResults.get(allStageResults.size() - 1));
-							// add stage result for the rider
-						}
-						return; // break out
-					}
-				}
+		Rider rider = findRider(riderId);
+		LiveStage live = liveStages.get(stageId);
+		if (getResult(stage, riderId) != null || live.getCheckpoint(riderId, checkpointIndex) != null) {
+			throw new DuplicatedResultException("Rider already has this checkpoint registered for this stage.");
+		}
+		if (!live.isInOrder(riderId, checkpointIndex, time)) { // check the checkpoints of the rider increase
+			throw new InvalidCheckpointsException("Checkpoints must be in order of time.");
+		}
+		if (!live.isRacing(riderId)) {
+			rider.addLiveStage(stageId); // the first checkpoint of the rider in the stage
+		}
+		LocalTime[] checkpoints = live.record(riderId, checkpointIndex, time, count);
+		if (checkpoints != null) { // every checkpoint is in, so the rider has finished
+			rider.removeLiveStage(stageId);
+			StageResult result = raceResults.get(stage.getRaceID()).add(stageId, riderId, stage.getRaceID(),
+					StageResult.computeIntElapsedTime(checkpoints), StageResult.toSecondsOfDay(checkpoints));
+			indexResult(result);
+			rider.addStageResult(result); // add stage result for the rider
+		}
+	}
+
+	/**
+	 * Checks the checkpoints of a rider against a stage.
+	 * @param stage The stage the checkpoints refer to.
+	 * @param checkpoints The start time, the time at each segment and the finish time.
+	 * @throws InvalidCheckpointsException Thrown if the number of checkpoints
+	 * does not match the stage, or if a checkpoint is missing.
+	 */
+	private static void checkCheckpoints(Stage stage, LocalTime[] checkpoints) throws InvalidCheckpointsException {
+		if (checkpoints == null || stage.getNumberOfSegments() + 2 != checkpoints.length) {
+			throw new InvalidCheckpointsException("Invalid number of checkpoints.");
+		}
+		for (LocalTime time: checkpoints) {
+			if (time == null) {
+				throw new InvalidCheckpointsException("Checkpoints must not be missing.");
 			}
 		}
-		throw new IDNotRecognisedException("ID does not match any rider in the system."); //thrown if ID is invalid
 	}
 
-	@Override
-	public LocalTime[] getRiderResultsInStage(int stageId, int riderId) throws IDNotRecognisedException {
-		boolean stageIDrecognised = false;
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				stageIDrecognised = true;
+	/**
+	 * Checks the checkpoints of a rider against a stage, given in seconds of the day.
+	 * @param stage The stage the checkpoints refer to.
+	 * @param checkpoints The start time, the time at each segment and the finish time.
+	 * @throws InvalidCheckpointsException Thrown if the number of checkpoints
+	 * does not match the stage, or if a checkpoint is not a second of the day.
+	 */
+	private static void checkCheckpoints(Stage stage, int[] checkpoints) throws InvalidCheckpointsException {
+		if (checkpoints == null || stage.getNumberOfSegments() + 2 != checkpoints.length) {
+			throw new InvalidCheckpointsException("Invalid number of checkpoints.");
+		}
+		for (int time: checkpoints) {
+			if (time < 0 || time >= 24 * 60 * 60) {
+				throw new InvalidCheckpointsException("Checkpoints must be seconds of the day.");
 			}
 		}
-		if (stageIDrecognised == false) {
-			throw new IDNotRecognisedException("ID does not match any stage in the system.");
-			// thrown if ID is invalid
+	}
+
+	/**
+	 * Records the times of a whole field of riders in a stage at once. Either
+	 * every result is registered or, if any of them is invalid, none is.
+	 * Each rider is checked in the same order as by
+	 * {@link #registerRiderResultsInStage(int, int, LocalTime...)}, so the
+	 * first invalid rider throws what registering it alone would.
+	 * The stage is ranked once for the whole field.
+	 * @param stageId The ID of the stage the results refer to.
+	 * @param riderIds The IDs of the riders.
+	 * @param checkpoints The checkpoints of each rider, at the same index as
+	 * their ID: the start time, the time at each segment and the finish time.
+	 * @throws IDNotRecognisedException If the ID of the stage or of a rider
+	 * does not match anything in the system.
+	 * @throws DuplicatedResultException Thrown if a rider already has a result
+	 * for the stage, or appears twice in the field.
+	 * @throws InvalidCheckpointsException Thrown if the number of checkpoints of
+	 * a rider does not match the stage, if a checkpoint is missing, or if there
+	 * is not one array of checkpoints per rider.
+	 * @throws InvalidStageStateException Thrown if the stage is not "waiting
+	 * for results".
+	 */
+	public void registerRiderResultsInStageBatch(int stageId, int[] riderIds, LocalTime[][] checkpoints)
+			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
+			InvalidStageStateException {
+		Stage stage = findStage(stageId);
+		checkField(stage, riderIds, checkpoints.length);
+		Rider[] riders = new Rider[riderIds.length];
+		IntObjectMap<Rider> field = new IntObjectMap<Rider>();
+		for (int i = 0; i < riderIds.length; i++) {
+			checkCheckpoints(stage, checkpoints[i]);
+			riders[i] = checkRider(stage, riderIds[i], field);
+		}
+		int[][] checkpointTimes = new int[checkpoints.length][]; // every row is valid from here
+		int[] elapsedTimes = new int[checkpoints.length];
+		for (int i = 0; i < checkpoints.length; i++) {
+			checkpointTimes[i] = StageResult.toSecondsOfDay(checkpoints[i]);
+			elapsedTimes[i] = StageResult.computeIntElapsedTime(checkpoints[i]);
+		}
+		registerRiderResults(stage, riders, checkpointTimes, elapsedTimes);
+	}
+
+	/**
+	 * Records the times of a whole field of riders in a stage at once, given
+	 * in seconds of the day. Either every result is registered or, if any of
+	 * them is invalid, none is. Each rider is checked in the same order as by
+	 * {@link #registerRiderResultsInStage(int, int, LocalTime...)}. The stage
+	 * is ranked once for the whole field.
+	 * @param stageId The ID of the stage the results refer to.
+	 * @param riderIds The IDs of the riders.
+	 * @param checkpoints The checkpoints of each rider in seconds of the day,
+	 * at the same index as their ID: the start time, the time at each segment
+	 * and the finish time.
+	 * @throws IDNotRecognisedException If the ID of the stage or of a rider
+	 * does not match anything in the system.
+	 * @throws DuplicatedResultException Thrown if a rider already has a result
+	 * for the stage, or appears twice in the field.
+	 * @throws InvalidCheckpointsException Thrown if the number of checkpoints of
+	 * a rider does not match the stage, if a checkpoint is not a second of the
+	 * day, or if there is not one array of checkpoints per rider.
+	 * @throws InvalidStageStateException Thrown if the stage is not "waiting
+	 * for results".
+	 */
+	public void registerRiderResultsInStageBatch(int stageId, int[] riderIds, int[][] checkpoints)
+			throws IDNotRecognisedException, DuplicatedResultException, InvalidCheckpointsException,
+			InvalidStageStateException {
+		Stage stage = findStage(stageId);
+		checkField(stage, riderIds, checkpoints.length);
+		Rider[] riders = new Rider[riderIds.length];
+		IntObjectMap<Rider> field = new IntObjectMap<Rider>();
+		for (int i = 0; i < riderIds.length; i++) {
+			checkCheckpoints(stage, checkpoints[i]);
+			riders[i] = checkRider(stage, riderIds[i], field);
+		}
+		int[] elapsedTimes = new int[checkpoints.length]; // every row is valid from here
+		for (int i = 0; i < checkpoints.length; i++) {
+			elapsedTimes[i] = checkpoints[i][checkpoints[i].length - 1] - checkpoints[i][0];
+		}
+		registerRiderResults(stage, riders, checkpoints, elapsedTimes);
+	}
+
+	/**
+	 * Checks that a stage accepts results and that a field has one array of
+	 * checkpoints per rider.
+	 * @param stage The stage the results refer to.
+	 * @param riderIds The IDs of the riders.
+	 * @param rows The number of arrays of checkpoints.
+	 * @throws InvalidStageStateException Thrown if the stage is not "waiting for results".
+	 * @throws InvalidCheckpointsException Thrown if there is not one array of
+	 * checkpoints per rider.
+	 */
+	private static void checkField(Stage stage, int[] riderIds, int rows)
+			throws InvalidStageStateException, InvalidCheckpointsException {
+		if (stage.getStageState() != StageState.WAITING_FOR_RESULTS) { // check stage state
+			throw new InvalidStageStateException("Stage is not accepting results at this time.");
+		}
+		if (riderIds.length != rows) {
+			throw new InvalidCheckpointsException("There must be one array of checkpoints per rider.");
 		}
-		for (StageResult result: allStageResults) {
-			if (result.getRiderID() == riderId && result.getStageID() == stageId) {
-				if (result.getElapsedTimeArray().length == 0) {
-					return new LocalTime[0]; // if no results then return empty array
-				} else {
-					return result.getElapsedTimeArray();
-				}
-			}
+	}
+
+	/**
+	 * Checks that a rider of a field exists and has no result in a stage yet.
+	 * @param stage The stage the results refer to.
+	 * @param riderId The ID of the rider.
+	 * @param field The riders of the field checked so far, keyed by ID.
+	 * @return The rider.
+	 * @throws IDNotRecognisedException If the ID does not match any rider in the system.
+	 * @throws DuplicatedResultException Thrown if the rider already has a result
+	 * for the stage, or appears earlier in the field.
+	 */
+	private Rider checkRider(Stage stage, int riderId, IntObjectMap<Rider> field)
+			throws IDNotRecognisedException, DuplicatedResultException {
+		Rider rider = findRider(riderId);
+		if (getResult(stage, riderId) != null || field.put(riderId, rider) != null) {
+			throw new DuplicatedResultException("Rider already has results registered for this stage.");
+		}
+		return rider;
+	}
+
+	/**
+	 * Stores a whole field of results in a stage, already checked, and adds
+	 * them to the stage in one pass.
+	 * @param stage The stage the results refer to.
+	 * @param riders The riders, none of whom has a result in the stage.
+	 * @param checkpoints The checkpoints of each rider in seconds of the day.
+	 * @param elapsedTimes The elapsed time of each rider, in seconds.
+	 */
+	private void registerRiderResults(Stage stage, Rider[] riders, int[][] checkpoints, int[] elapsedTimes) {
+		RaceResults results = raceResults.get(stage.getRaceID()); // nothing has changed up to here
+		StageResult[] added = new StageResult[riders.length];
+		for (int i = 0; i < riders.length; i++) {
+			added[i] = results.add(stage.getStageID(), riders[i].getRiderID(), stage.getRaceID(), elapsedTimes[i], checkpoints[i]);
+			riders[i].addStageResult(added[i]);
+		}
+		stageClassifications.get(stage.getStageID()).addAll(added); // ranks the whole field at once
+		raceClassifications.get(stage.getRaceID()).invalidate(stage.getStageID());
+	}
+
+	@Override
+	public LocalTime[] getRiderResultsInStage(int stageId, int riderId) throws IDNotRecognisedException {
+		Stage stage = findStage(stageId);
+		findRider(riderId);
+		StageResult result = getResult(stage, riderId);
+		if (result == null) {
+			return new LocalTime[0]; // if no results then return empty array
 		}
-		throw new IDNotRecognisedException("ID does not match any rider in the system.");
-		// thrown if ID is invalid
+		return result.getElapsedTimeArray();
 	}
 
 	@Override
 	public LocalTime getRiderAdjustedElapsedTimeInStage(int stageId, int riderId) throws IDNotRecognisedException {
-		boolean stageIDrecognised = false;
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				stageIDrecognised = true;
-			}
-		}
-		if (stageIDrecognised == false) {
-			throw new IDNotRecognisedException("ID does not match any stage in the system.");
-			// thrown if ID is invalid
-		}
-		for (Rider rider: allRiders) {
-			if (rider.getRiderID() == riderId) {
-				int[] ridersRankInStage = getRidersRankInStage(stageId);
-				for (int i = 0; i < ridersRankInStage.length; i++) {
-					if (ridersRankInStage[i] == riderId) {
-						if (getRiderResultsInStage(stageId, riderId).length == 0) {
-							return null;
-						}
-						assert getRiderResultsInStage(stageId, riderId).length != 0;
-						if (ridersRankInStage[0] == riderId) {
-							LocalTime currentRiderResult = getRiderResultsInStage(stageId, riderId)[getRiderResultsInStage(stageId, riderId).length - 1];
-							for (StageResult result: allStageResults) {
-								if (result.getRiderID() == riderId && result.getStageID() == stageId) {
-									result.setAdjustedElapsedTime(currentRiderResult);
-								}
-							}
-							return currentRiderResult;
-						}
-						if (ridersRankInStage.length == 0) {
-							return null;
-						}
-						LocalTime currentRiderResult = getRiderResultsInStage(stageId, riderId)[getRiderResultsInStage(stageId, riderId).length - 1];
-						LocalTime nextRiderResult = getRiderResultsInStage(stageId, ridersRankInStage[i - 1])[getRiderResultsInStage(stageId, ridersRankInStage[i - 1]).length - 1];
-						if (nextRiderResult.until(currentRiderResult, ChronoUnit.SECONDS) <= 1) {
-							currentRiderResult = nextRiderResult;
-							for (StageResult result: allStageResults) {
-								if (result.getRiderID() == riderId && result.getStageID() == stageId) {
-									result.setAdjustedElapsedTime(currentRiderResult);
-								}
-							}
-							return currentRiderResult; // returns adjusted elapsed time
-						} else {
-							for (StageResult result: allStageResults) {
-								if (result.getRiderID() == riderId && result.getStageID() == stageId) {
-									result.setAdjustedElapsedTime(currentRiderResult);
-								}
-							}
-							return currentRiderResult; // returns adjusted elapsed time
-						}
-					}
-				}
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any rider in the system."); // thrown if ID is invalid
+		Stage stage = findStage(stageId);
+		findRider(riderId);
+		StageResult result = getResult(stage, riderId);
+		if (result == null) {
+			return null; // rider has no result in the stage
+		}
+		adjustResultsInStage(stageId); // the group of the rider can reach back to any rider ahead
+		return result.getAdjustedElapsedTime(); // returns adjusted elapsed time
 	}
 
+
 	@Override
 	public void deleteRiderResultsInStage(int stageId, int riderId) throws IDNotRecognisedException {
-		for (Rider rider: allRiders) {
-			if (rider.getRiderID() == riderId) {
-				for (StageResult result: rider.getStageResults()) {
-					if (result.getStageID() == stageId) {
-						rider.removeStageResult(result);
-						allStageResults.remove(result);
-						return; // remove all results then break out
-					}
-				}
-				throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		Rider rider = findRider(riderId);
+		Stage stage = findStage(stageId);
+		StageResult result = getResult(stage, riderId);
+		boolean recorded = liveStages.get(stageId).remove(riderId); // checkpoints of a rider still racing, if any
+		if (recorded) {
+			rider.removeLiveStage(stageId);
+		}
+		if (result == null) {
+			if (recorded) {
+				return; // the rider had not finished the stage yet
 			}
+			throw new IDNotRecognisedException("Rider has no results registered for this stage."); // thrown if there is nothing to delete
 		}
-		throw new IDNotRecognisedException("ID does not match any rider in the system."); // thrown if ID is invalid
+		rider.removeStageResult(result);
+		removeResult(result); // remove results of the rider in the stage
 	}
 
 	@Override
 	public int[] getRidersRankInStage(int stageId) throws IDNotRecognisedException {
-		boolean stageIDrecognised = false;
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				stageIDrecognised = true;
-			}
-		}
-		if (stageIDrecognised == false) {
-			throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
-		}
-		
-		ArrayList<StageResult> stageResultsforStageID = new ArrayList<StageResult>();
-		for (StageResult result: allStageResults) {
-			if (result.getStageID() == stageId) {
-				stageResultsforStageID.add(result);
-			}
-		}
-		if (stageResultsforStageID.size() == 0) {
-			return new int[0];
-		}
-
-		int[] elapsedTimes = new int[stageResultsforStageID.size()];
-		for (int i = 0; i < stageResultsforStageID.size(); i++) {
-			elapsedTimes[i] = stageResultsforStageID.get(i).getIntElapsedTime();						
-		}
-		Arrays.sort(elapsedTimes);
-		int[] sortedIDs = new int[elapsedTimes.length];
-		for (int i = 0; i < elapsedTimes.length; i++) {
-			for (StageResult result: stageResultsforStageID) {
-				if (result.getIntElapsedTime() == elapsedTimes[i]) {
-					if (i == 0) {
-						sortedIDs[i] = result.getRiderID();
-					} else if (sortedIDs[i - 1] == result.getRiderID()) {
-						break;
-					}
-					sortedIDs[i] = result.getRiderID();
-				} 
-			}
-		}
-		return sortedIDs; // returns an array of sorted IDs in a stage
+		return getRidersRankInStage(stageId, 0, Integer.MAX_VALUE); // returns an array of sorted IDs in a stage
 	}
 
-
+	@Override
+	public int[] getRidersRankInStage(int stageId, int offset, int limit) throws IDNotRecognisedException {
+		findStage(stageId);
+		return RankingEngine.riderIDs(rankResultsInStage(stageId, offset, limit));
+	}
 
 	@Override
 	public LocalTime[] getRankedAdjustedElapsedTimesInStage(int stageId) throws IDNotRecognisedException {
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				int[] riderRank = getRidersRankInStage(stageId);
-				LocalTime[] riderAdjustedElapsedTimes = new LocalTime[riderRank.length];
-				if (riderRank.length == 0) {
-					return new LocalTime[0]; // return empty array if there are no riders
-				}
-				for (int i = 0; i < riderRank.length; i++) {
-					riderAdjustedElapsedTimes[i] = getRiderAdjustedElapsedTimeInStage(stageId, riderRank[i]);
-				}
-				return riderAdjustedElapsedTimes; // returns ranked adjusted elapsed times
-			}
-		}
-		throw new IDNotRecognisedException("ID does not match any stage in the system."); // thrown if ID is invalid
+		return getRankedAdjustedElapsedTimesInStage(stageId, 0, Integer.MAX_VALUE); // returns ranked adjusted elapsed times
+	}
+
+	@Override
+	public LocalTime[] getRankedAdjustedElapsedTimesInStage(int stageId, int offset, int limit)
+			throws IDNotRecognisedException {
+		findStage(stageId);
+		adjustResultsInStage(stageId); // sweeps the stage only if it changed since the last sweep
+		StageResult[] ranked = rankResultsInStage(stageId, offset, limit);
+		LocalTime[] riderAdjustedElapsedTimes = new LocalTime[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			riderAdjustedElapsedTimes[i] = ranked[i].getAdjustedElapsedTime();
+		}
+		return riderAdjustedElapsedTimes;
 	}
 
 
 	@Override
 	public int[] getRidersPointsInStage(int stageId) throws IDNotRecognisedException {
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				if (getRidersRankInStage(stageId).length == 0) {
-					return new int[0]; // return empty array if there are no riders in stage
-				}
-				if (stage.getStageType() == StageType.FLAT) {
-					int[] ridersPoints = {50, 30, 20, 18, 16, 14, 12, 10, 8, 7, 6, 5, 4, 3, 2};
-					int[] riderIDs = getRidersRankInStage(stageId);
-					for (int i = 0; i < riderIDs.length; i++) {
-						for (Rider rider: allRiders) {
-							if (rider.getRiderID() == riderIDs[i]) {
-								for (StageResult result: allStageResults) {
-									if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-										result.setPoints(ridersPoints[i]);
-									}
-								}
-							}
-						}
-					}
-					return ridersPoints;  // return rider's points
-				}
-				if (stage.getStageType() == StageType.MEDIUM_MOUNTAIN) {
-					int[] ridersPoints = {30, 25, 22, 19, 17, 15, 13, 11, 9, 7, 6, 5, 4, 3, 2};
-					int[] riderIDs = getRidersRankInStage(stageId);
-					for (int i = 0; i < riderIDs.length; i++) {
-						for (Rider rider: allRiders) {
-							if (rider.getRiderID() == riderIDs[i]) {
-								for (StageResult result: allStageResults) {
-									if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-										result.setPoints(ridersPoints[i]);
-									}
-								}
-							}
-						}
-					}
-					return ridersPoints; // return rider's points
-				}
-				if (stage.getStageType() == StageType.HIGH_MOUNTAIN) {
-					int[] ridersPoints = {20, 17, 15, 13, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
-					int[] riderIDs = getRidersRankInStage(stageId);
-					for (int i = 0; i < riderIDs.length; i++) {
-						for (Rider rider: allRiders) {
-							if (rider.getRiderID() == riderIDs[i]) {
-								for (StageResult result: allStageResults) {
-									if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-										result.setPoints(ridersPoints[i]);
-									}
-								}
-							}
-						}
-					}
-					return ridersPoints;	// return rider's points
-				}
-				if (stage.getStageType() == StageType.TT) {
-					int[] ridersPoints = {20, 17, 15, 13, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1};
-					int[] riderIDs = getRidersRankInStage(stageId);
-					for (int i = 0; i < riderIDs.length; i++) {
-						for (Rider rider: allRiders) {
-							if (rider.getRiderID() == riderIDs[i]) {
-								for (StageResult result: allStageResults) {
-									if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-										result.setPoints(ridersPoints[i]);
-									}
-								}
-							}
-						}
-					}
-					return ridersPoints; // return rider's points
-				}
-			}
+		Stage stage = findStage(stageId);
+		StageResult[] ranked = rankResultsInStage(stageId);
+		if (ranked.length == 0) {
+			return new int[0]; // return empty array if there are no riders in stage
+		}
+		scoreStage(stage);
+		int[] ridersPoints = new int[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			ridersPoints[i] = ranked[i].getPoints();
 		}
-		throw new IDNotRecognisedException("ID does not match any stage in the system.");	
-		//thrown if ID is invalid	
+		return ridersPoints; // return riders' points in finish order
+	}
+
+	/**
+	 * Sets the points and mountain points of every result of a stage, from
+	 * its finish order and from the order of the riders at each segment,
+	 * unless they are already up to date.
+	 * @param stage The stage.
+	 */
+	private void scoreStage(Stage stage) {
+		StageClassification classification = stageClassifications.get(stage.getStageID());
+		if (classification == null) {
+			return;
+		}
+		ArrayList<Segment> segments = stage.getSegments();
+		SegmentType[] segmentTypes = new SegmentType[segments.size()];
+		for (int i = 0; i < segmentTypes.length; i++) {
+			segmentTypes[i] = segments.get(i).getSegmentType(); // segments are kept by location, so segment i is timed at checkpoint i + 1
+		}
+		classification.score(scoring, stage.getStageType(), segmentTypes);
 	}
 
 	@Override
 	public int[] getRidersMountainPointsInStage(int stageId) throws IDNotRecognisedException {
-		for (Stage stage: allStages) {
-			if (stage.getStageID() == stageId) {
-				if (getRidersRankInStage(stageId).length == 0) { // ADD CONDITIONS TO ENSURE THAT STAGE IS MOUNTAIN TYPE!
-					return new int[0];
-				}
-				for (Segment segment: stage.getSegments()) {
-					if (segment.getSegmentType() == SegmentType.C4) {
-						int[] ridersPoints = {1, 0, 0 ,0 ,0 ,0 ,0, 0, 0, 0, 0, 0, 0, 0, 0};
-						int[] riderIDs = getRidersRankInStage(stageId);
-						for (int i = 0; i < riderIDs.length; i++) {
-							for (Rider rider: allRiders) {
-								if (rider.getRiderID() == riderIDs[i]) {
-									for (StageResult result: allStageResults) {
-										if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-											result.setMountainPoints(ridersPoints[i]);
-										}
-									}
-								}
-							}
-						}
-						return ridersPoints;  // return rider's points
-					}
-					if (segment.getSegmentType() == SegmentType.C3) {
-						int[] ridersPoints = {2, 1, 0 ,0 ,0 ,0 ,0, 0, 0, 0, 0, 0, 0, 0, 0};
-						int[] riderIDs = getRidersRankInStage(stageId);
-						for (int i = 0; i < riderIDs.length; i++) {
-							for (Rider rider: allRiders) {
-								if (rider.getRiderID() == riderIDs[i]) {
-									for (StageResult result: allStageResults) {
-										if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-											result.setMountainPoints(ridersPoints[i]);
-										}
-									}
-								}
-							}
-						}
-						return ridersPoints; // return rider's points
-					}
-					if (segment.getSegmentType() == SegmentType.C2) {
-						int[] ridersPoints = {5, 3, 2, 1, 0 ,0 ,0, 0, 0, 0, 0, 0, 0, 0, 0};
-						int[] riderIDs = getRidersRankInStage(stageId);
-						for (int i = 0; i < riderIDs.length; i++) {
-							for (Rider rider: allRiders) {
-								if (rider.getRiderID() == riderIDs[i]) {
-									for (StageResult result: allStageResults) {
-										if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-											result.setMountainPoints(ridersPoints[i]);
-										}
-									}
-								}
-							}
-						}
-						return ridersPoints; // return rider's points
-					}
-					if (segment.getSegmentType() == SegmentType.C1) {
-						int[] ridersPoints = {10, 8, 6, 4, 2, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0};
-						int[] riderIDs = getRidersRankInStage(stageId);
-						for (int i = 0; i < riderIDs.length; i++) {
-							for (Rider rider: allRiders) {
-								if (rider.getRiderID() == riderIDs[i]) {
-									for (StageResult result: allStageResults) {
-										if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-											result.setMountainPoints(ridersPoints[i]);
-										}
-									}
-								}
-							}
-						}
-						return ridersPoints; // return rider's points
-					}
-					if (segment.getSegmentType() == SegmentType.HC) {
-						int[] ridersPoints = {20, 15, 12, 10, 8, 6, 4, 2, 0, 0, 0, 0, 0, 0, 0};
-						int[] riderIDs = getRidersRankInStage(stageId);
-						for (int i = 0; i < riderIDs.length; i++) {
-							for (Rider rider: allRiders) {
-								if (rider.getRiderID() == riderIDs[i]) {
-									for (StageResult result: allStageResults) {
-										if (result.getStageID() == stageId && result.getRiderID() == rider.getRiderID()) {
-											result.setMountainPoints(ridersPoints[i]);
-										}
-									}
-								}
-							}
-						}
-						return ridersPoints; // return rider's points
-					}
-				}
-			}
+		Stage stage = findStage(stageId);
+		StageResult[] ranked = rankResultsInStage(stageId);
+		if (ranked.length == 0) {
+			return new int[0];
+		}
+		scoreStage(stage);
+		int[] ridersPoints = new int[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			ridersPoints[i] = ranked[i].getMountainPoints();
 		}
-		throw new IDNotRecognisedException("ID does not match any stage in the system.");
-		//thrown if ID is invalid
+		return ridersPoints; // return riders' mountain points in finish order
 	}
 
 	@Override
 	public void eraseCyclingPortal() {
 		allRaces.clear();
-		Race.clearAll();
 		allStages.clear();
-		Stage.clearAll();
 		allSegments.clear();
-		Segment.clearAll();
 		allTeams.clear();
-		Team.clearAll();
 		allRiders.clear();
-		Rider.clearAll();
-		allStageResults.clear();
+		raceResults.clear();
+		stageClassifications.clear();
+		raceClassifications.clear();
+		liveStages.clear();
+		raceIndex.clear();
+		stageIndex.clear();
+		segmentIndex.clear();
+		teamIndex.clear();
+		riderIndex.clear();
+		raceNameIndex.clear();
+		stageNameIndex.clear();
+		teamNameIndex.clear();
+		raceIDs.reset();
+		stageIDs.reset();
+		segmentIDs.reset();
+		teamIDs.reset();
+		riderIDs.reset();
 		// delete everything
 	}
 
@@ -776,8 +1098,11 @@ public class CyclingPortal implements CyclingPortalInterface {
 			for (Rider rider: allRiders) {
 				allObjects.add(rider);
 			}
-			for (StageResult result: allStageResults) {
-				allObjects.add(result);
+			for (Race race: allRaces) {
+				RaceResults results = raceResults.get(race.getRaceID());
+				for (int row = 0; row < results.size(); row++) {
+					allObjects.add(results.getResult(row)); // each result carries the store of its race with it
+				}
 			}
 			FileOutputStream file = new FileOutputStream(filename);
 			ObjectOutputStream output = new ObjectOutputStream(file);
@@ -798,28 +1123,53 @@ public class CyclingPortal implements CyclingPortalInterface {
 			FileInputStream file = new FileInputStream(filename);
 			ObjectInputStream input = new ObjectInputStream(file);
 			allObjects = (ArrayList) input.readObject();
+			input.close();
+			file.close();
+			eraseCyclingPortal(); // the file has been read, so its contents replace the portal's
 			for (Object a: allObjects) {
 				if (a instanceof Race) {
 					allRaces.add((Race) a);
+					raceIndex.put(((Race) a).getRaceID(), (Race) a);
+					raceIDs.observe(((Race) a).getRaceID());
+					raceNameIndex.put(((Race) a).getName(), (Race) a);
+					raceResults.put(((Race) a).getRaceID(), new RaceResults());
+					raceClassifications.put(((Race) a).getRaceID(), new RaceClassification());
 				}
 				if (a instanceof Stage) {
 					allStages.add((Stage) a);
+					stageIndex.put(((Stage) a).getStageID(), (Stage) a);
+					stageIDs.observe(((Stage) a).getStageID());
+					stageNameIndex.put(((Stage) a).getName(), (Stage) a);
+					stageClassifications.put(((Stage) a).getStageID(), new StageClassification());
+					liveStages.put(((Stage) a).getStageID(), new LiveStage());
 				}
 				if (a instanceof Segment) {
 					allSegments.add((Segment) a);
+					segmentIndex.put(((Segment) a).getSegmentID(), (Segment) a);
+					segmentIDs.observe(((Segment) a).getSegmentID());
 				}
 				if (a instanceof Team) {
 					allTeams.add((Team) a);
+					teamIndex.put(((Team) a).getTeamID(), (Team) a);
+					teamIDs.observe(((Team) a).getTeamID());
+					teamNameIndex.put(((Team) a).getName(), (Team) a);
 				}
 				if (a instanceof Rider) {
 					allRiders.add((Rider) a);
+					riderIndex.put(((Rider) a).getRiderID(), (Rider) a);
+					riderIDs.observe(((Rider) a).getRiderID());
 				}
 				if (a instanceof StageResult) {
-					allStageResults.add((StageResult) a);
+					StageResult result = raceResults.get(((StageResult) a).getRaceID()).copyOf((StageResult) a);
+					// moves the result into the store of its race in this portal
+					Rider rider = riderIndex.get(result.getRiderID());
+					if (rider != null) {
+						rider.removeStageResult((StageResult) a);
+						rider.addStageResult(result);
+					}
+					indexResult(result);
 				}
 			}
-			input.close();
-			file.close();
 			//deserializing file back to portal
 		} catch (IOException i) {
 			throw new IOException("There was a problem when trying to read portal contents from file.");
@@ -831,347 +1181,147 @@ public class CyclingPortal implements CyclingPortalInterface {
 
 	@Override
 	public void removeRaceByName(String name) throws NameNotRecognisedException {
-		for (Race race: allRaces) {
-			if (race.getName() == name) {
-				try {
-				removeRaceById(race.getRaceID());
-					return; // removes race then breaks out
-				} catch (IDNotRecognisedException i) {
-					i.printStackTrace();
-				}
-			}
+		Race race = raceNameIndex.get(name);
+		if (race == null) {
+			throw new NameNotRecognisedException("Name does not match any race in the system.");
+			// thrown if name is invalid
+		}
+		try {
+			removeRaceById(race.getRaceID()); // removes race
+		} catch (IDNotRecognisedException i) {
+			i.printStackTrace();
 		}
-		throw new NameNotRecognisedException("Name does not match any race in the system.");
-		// thrown if name is invalid
 	}
 	@Override
 	public LocalTime[] getGeneralClassificationTimesInRace(int raceId) throws IDNotRecognisedException {
-		boolean raceIDrecognised = false;
-		ArrayList<StageResult> stageResultsInRace = new ArrayList<>();
-		ArrayList<Rider> ridersInRace = new ArrayList<>();
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				raceIDrecognised = true;
-				for (int stageID: race.getStageIDs()) {
-					getRankedAdjustedElapsedTimesInStage(stageID);
-				}
-				for (StageResult result: allStageResults) {
-					if (result.getRaceID() == raceId) {
-						stageResultsInRace.add(result);
-					}
-				}
-			}
-		}
-		if (stageResultsInRace.isEmpty()) {
-			return new LocalTime[0];
-		}
-		if (raceIDrecognised == false) {
-			throw new IDNotRecognisedException("Race ID does not match any race in the system");
-			// thrown if ID is invalid
-		}
-		for (Rider rider: allRiders) {
-			for (StageResult result: stageResultsInRace) {
-				if (rider.getRiderID() == result.getRiderID()) {
-					if (ridersInRace.contains(rider)) {
-						continue;
-					} else {
-						ridersInRace.add(rider);
-					}
-				}
-			}
-		}
-		int[] intAdjustedElapsedTimes = new int[ridersInRace.size()];
-		
-		for (int i = 0; i < intAdjustedElapsedTimes.length; i++) {
-			intAdjustedElapsedTimes[i] = ridersInRace.get(i).getIntAdjustedElapsedTimeInRace(raceId);
-		}
-		Arrays.sort(intAdjustedElapsedTimes);
-		LocalTime[] adjustedElapsedTimes = new LocalTime[intAdjustedElapsedTimes.length];
+		return getGeneralClassificationTimesInRace(raceId, 0, Integer.MAX_VALUE);
+		// returns general classification times of all riders in race
+	}
+
+	@Override
+	public LocalTime[] getGeneralClassificationTimesInRace(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		findRace(raceId);
+		ArrayList<RaceClassification.Standing> standings = classifyRace(raceId).getStandings(offset, endOf(offset, limit));
+		LocalTime[] adjustedElapsedTimes = new LocalTime[standings.size()];
 		for (int i = 0; i < adjustedElapsedTimes.length; i++) {
-			adjustedElapsedTimes[i] = StageResult.convertIntTimeToLocalTime(intAdjustedElapsedTimes[i]);
+			adjustedElapsedTimes[i] = StageResult.convertIntTimeToLocalTime(standings.get(i).getTime());
 		}
-		return adjustedElapsedTimes; // returns general classification times of all riders in race
+		return adjustedElapsedTimes;
 	}
 
 	@Override
 	public int[] getRidersPointsInRace(int raceId) throws IDNotRecognisedException {
-		boolean raceIDrecognised = false;
-		ArrayList<StageResult> stageResultsInRace = new ArrayList<>();
-		ArrayList<Rider> ridersInRace = new ArrayList<>();
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				raceIDrecognised = true;
-				for (int stageID: race.getStageIDs()) {
-					getRidersPointsInStage(stageID);
-				}
-				for (StageResult result: allStageResults) {
-					if (result.getRaceID() == raceId) {
-						stageResultsInRace.add(result);
-					}
-				}
-			}
-		}
-		if (stageResultsInRace.isEmpty()) {
-			return new int[0];
-		}
-		if (raceIDrecognised == false) {
-			throw new IDNotRecognisedException("Race ID does not match any race in the system");
-			// thrown if ID is invalid
-		}
-		for (Rider rider: allRiders) {
-			for (StageResult result: stageResultsInRace) {
-				if (rider.getRiderID() == result.getRiderID()) {
-					if (ridersInRace.contains(rider)) {
-						continue;
-					} else {
-						ridersInRace.add(rider);
-					}
-				}
-			}
-		}		
-		int[] riderPoints = new int[ridersInRace.size()];
+		findRace(raceId);
+		ArrayList<RaceClassification.Standing> standings = classifyRace(raceId).getStandings();
+		int[] riderPoints = new int[standings.size()];
 		for (int i = 0; i < riderPoints.length; i++) {
-			riderPoints[i] = ridersInRace.get(i).getPointsInRace(raceId);
-		}
-		Integer[] integerRiderPoints = Arrays.stream(riderPoints).boxed().toArray(Integer[]::new);
-		Arrays.sort(integerRiderPoints, Comparator.reverseOrder());
-		for (int i = 0; i < integerRiderPoints.length; i++) {
-			riderPoints[i] = integerRiderPoints[i].intValue();
+			riderPoints[i] = standings.get(i).getPoints();
 		}
-		return riderPoints; // returns rider points of all riders in race
+		return riderPoints; // returns rider points of all riders in race, in general classification order
 	}
 
 	@Override
 	public int[] getRidersMountainPointsInRace(int raceId) throws IDNotRecognisedException {
-		boolean raceIDrecognised = false;
-		ArrayList<StageResult> stageResultsInRace = new ArrayList<>();
-		ArrayList<Rider> ridersInRace = new ArrayList<>();
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				raceIDrecognised = true;
-				for (int stageID: race.getStageIDs()) {
-					getRidersMountainPointsInStage(stageID);
-				}
-				for (StageResult result: allStageResults) {
-					if (result.getRaceID() == raceId) {
-						stageResultsInRace.add(result);
-					}
-				}
-			}
-		}
-		if (stageResultsInRace.isEmpty()) {
-			return new int[0];
-		}
-		if (raceIDrecognised == false) {
-			throw new IDNotRecognisedException("Race ID does not match any race in the system");
-			// thrown if ID is invalid
-		}
-		for (Rider rider: allRiders) {
-			for (StageResult result: stageResultsInRace) {
-				if (rider.getRiderID() == result.getRiderID()) {
-					if (ridersInRace.contains(rider)) {
-						continue;
-					} else {
-						ridersInRace.add(rider);
-					}
-				}
-			}
-		}		
-		int[] riderMountainPoints = new int[ridersInRace.size()];
+		findRace(raceId);
+		ArrayList<RaceClassification.Standing> standings = classifyRace(raceId).getStandings();
+		int[] riderMountainPoints = new int[standings.size()];
 		for (int i = 0; i < riderMountainPoints.length; i++) {
-			riderMountainPoints[i] = ridersInRace.get(i).getMountainPointsInRace(raceId);
-		}
-		Integer[] integerRiderPoints = Arrays.stream(riderMountainPoints).boxed().toArray(Integer[]::new);
-		Arrays.sort(integerRiderPoints, Comparator.reverseOrder());
-		for (int i = 0; i < integerRiderPoints.length; i++) {
-			riderMountainPoints[i] = integerRiderPoints[i].intValue();
+			riderMountainPoints[i] = standings.get(i).getMountainPoints();
 		}
 		return riderMountainPoints;
-		// returns rider mountain points of all riders in race
+		// returns rider mountain points of all riders in race, in general classification order
 	}
 
 	@Override
 	public int[] getRidersGeneralClassificationRank(int raceId) throws IDNotRecognisedException {
-		boolean raceIDrecognised = false;
-		ArrayList<StageResult> stageResultsInRace = new ArrayList<>();
-		ArrayList<Rider> ridersInRace = new ArrayList<>();
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				raceIDrecognised = true;
-				for (int stageID: race.getStageIDs()) {
-					getRankedAdjustedElapsedTimesInStage(stageID);
-				}
-				for (StageResult result: allStageResults) {
-					if (result.getRaceID() == raceId) {
-						stageResultsInRace.add(result);
-					}
-				}
-			}
-		}
-		if (stageResultsInRace.isEmpty()) {
-			return new int[0];
-		}
-		if (raceIDrecognised == false) {
-			throw new IDNotRecognisedException("Race ID does not match any race in the system");
-			// thrown if ID is invalid
-		}
-		for (Rider rider: allRiders) {
-			for (StageResult result: stageResultsInRace) {
-				if (rider.getRiderID() == result.getRiderID()) {
-					if (ridersInRace.contains(rider)) {
-						continue;
-					} else {
-						ridersInRace.add(rider);
-					}
-				}
-			}
-		}
-		int[] intAdjustedElapsedTimes = new int[ridersInRace.size()];
-		for (int i = 0; i < intAdjustedElapsedTimes.length; i++) {
-			intAdjustedElapsedTimes[i] = ridersInRace.get(i).getIntAdjustedElapsedTimeInRace(raceId);
-		}
-		Arrays.sort(intAdjustedElapsedTimes);
-		int[] ridersRankInRace = new int[intAdjustedElapsedTimes.length];
-		for (int i = 0; i < ridersRankInRace.length; i++) {
-			for (Rider rider: ridersInRace) {
-				if (rider.getIntAdjustedElapsedTimeInRace(raceId) == intAdjustedElapsedTimes[i]) {
-					if (i == 0) {
-						ridersRankInRace[i] = rider.getRiderID();
-					} else if (ridersRankInRace[i - 1] == rider.getRiderID()) {
-						break;
-					}
-					ridersRankInRace[i] = rider.getRiderID();
-				}
-			}
-		}
-		return ridersRankInRace;
+		return getRidersGeneralClassificationRank(raceId, 0, Integer.MAX_VALUE);
 		// returns ranks of riders by general classification in a race
 	}
 
+	@Override
+	public int[] getRidersGeneralClassificationRank(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		findRace(raceId);
+		return riderIDsOf(classifyRace(raceId).getStandings(offset, endOf(offset, limit)));
+	}
+
 	@Override
 	public int[] getRidersPointClassificationRank(int raceId) throws IDNotRecognisedException {
-		boolean raceIDrecognised = false;
-		ArrayList<StageResult> stageResultsInRace = new ArrayList<>();
-		ArrayList<Rider> ridersInRace = new ArrayList<>();
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				raceIDrecognised = true;
-				for (int stageID: race.getStageIDs()) {
-					getRidersPointsInStage(stageID);
-				}
-				for (StageResult f: allStageResults) {
-					if (f.getRaceID() == raceId) {
-						stageResultsInRace.add(f);
-					}
-				}
-			}
-		}
-		if (stageResultsInRace.isEmpty()) {
-			return new int[0];
-		}
-		if (raceIDrecognised == false) {
-			throw new IDNotRecognisedException("Race ID does not match any race in the system");
-			// thrown if ID is invalid
-		}
-		for (Rider rider: allRiders) {
-			for (StageResult result: stageResultsInRace) {
-				if (rider.getRiderID() == result.getRiderID()) {
-					if (ridersInRace.contains(rider)) {
-						continue;
-					} else {
-						ridersInRace.add(rider);
-					}
-				}
-			}
-		}
-		
-		int[] riderPoints = new int[ridersInRace.size()];
-		for (int i = 0; i < riderPoints.length; i++) {
-				riderPoints[i] = ridersInRace.get(i).getPointsInRace(raceId);
-			}
-		
-		Arrays.sort(riderPoints);
-		Integer[] integerRiderPoints = Arrays.stream(riderPoints).boxed().toArray(Integer[]::new);
-		Arrays.sort(integerRiderPoints, Comparator.reverseOrder());
-		for (int i = 0; i < integerRiderPoints.length; i++) {
-			riderPoints[i] = integerRiderPoints[i].intValue();
-		}
-		int[] ridersRankInRace = new int[riderPoints.length];
-		for (int i = 0; i < ridersRankInRace.length; i++) {
-			for (Rider rider: ridersInRace) {
-				if (rider.getPointsInRace(raceId) == riderPoints[i]) {
-					if (i == 0) {
-						ridersRankInRace[i] = rider.getRiderID();
-					} else if (ridersRankInRace[i - 1] == rider.getRiderID()) {
-						break;
-					}
-					ridersRankInRace[i] = rider.getRiderID();					
-				}
-			}
-		}
-		return ridersRankInRace;
+		return getRidersPointClassificationRank(raceId, 0, Integer.MAX_VALUE);
 		// returns ranks of riders by points classification in a race
 	}
 
+	@Override
+	public int[] getRidersPointClassificationRank(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		findRace(raceId);
+		return riderIDsOf(classifyRace(raceId).getPointsStandings(offset, endOf(offset, limit)));
+	}
+
 	@Override
 	public int[] getRidersMountainPointClassificationRank(int raceId) throws IDNotRecognisedException {
-		boolean raceIDrecognised = false;
-		ArrayList<StageResult> stageResultsInRace = new ArrayList<>();
-		ArrayList<Rider> ridersInRace = new ArrayList<>();
-		for (Race race: allRaces) {
-			if (race.getRaceID() == raceId) {
-				raceIDrecognised = true;
-				for (int stageID: race.getStageIDs()) {
-					getRidersMountainPointsInStage(stageID);
-				}
-				for (StageResult result: allStageResults) {
-					if (result.getRaceID() == raceId) {
-						stageResultsInRace.add(result);
-					}
-				}
-			}
-		}
-		if (stageResultsInRace.isEmpty()) {
-			return new int[0];
-		}
-		if (raceIDrecognised == false) {
-			throw new IDNotRecognisedException("Race ID does not match any race in the system");
-			// thrown if ID is invalid
-		}
-		for (Rider rider: allRiders) {
-			for (StageResult result: stageResultsInRace) {
-				if (rider.getRiderID() == result.getRiderID()) {
-					if (ridersInRace.contains(rider)) {
-						continue;
-					} else {
-						ridersInRace.add(rider);
-					}
-				}
-			}
-		}		
-		int[] riderMountainPoints = new int[ridersInRace.size()];
-		for (int i = 0; i < riderMountainPoints.length; i++) {
-			riderMountainPoints[i] = ridersInRace.get(i).getMountainPointsInRace(raceId);
-		}
-		Integer[] integerRiderPoints = Arrays.stream(riderMountainPoints).boxed().toArray(Integer[]::new);
-		Arrays.sort(integerRiderPoints, Comparator.reverseOrder());
-		for (int i = 0; i < integerRiderPoints.length; i++) {
-			riderMountainPoints[i] = integerRiderPoints[i].intValue();
-		}
-		int[] ridersRankInRace = new int[riderMountainPoints.length];
-		for (int i = 0; i < ridersRankInRace.length; i++) {
-			for (Rider rider: ridersInRace) {
-				if (rider.getMountainPointsInRace(raceId) == riderMountainPoints[i]) {
-					if (i == 0) {
-						ridersRankInRace[i] = rider.getRiderID();
-					} else if (ridersRankInRace[i - 1] == rider.getRiderID()) {
-						break;
-					}
-					ridersRankInRace[i] = rider.getRiderID();
-				}
-			}
-		}
-		return ridersRankInRace;
+		return getRidersMountainPointClassificationRank(raceId, 0, Integer.MAX_VALUE);
 		// returns ranks of riders by mountain points classification in a race
 	}
+
+	@Override
+	public int[] getRidersMountainPointClassificationRank(int raceId, int offset, int limit)
+			throws IDNotRecognisedException {
+		findRace(raceId);
+		return riderIDsOf(classifyRace(raceId).getMountainPointsStandings(offset, endOf(offset, limit)));
+	}
+
+	@Override
+	public int[] getTopRidersInStage(int stageId, int k) throws IDNotRecognisedException {
+		return getRidersRankInStage(stageId, 0, k); // read from the maintained order, no sort
+	}
+
+	@Override
+	public int[] getTopGeneralClassification(int raceId, int k) throws IDNotRecognisedException {
+		return getRidersGeneralClassificationRank(raceId, 0, k);
+	}
+
+	@Override
+	public int[] getTopPointClassification(int raceId, int k) throws IDNotRecognisedException {
+		return getRidersPointClassificationRank(raceId, 0, k);
+	}
+
+	@Override
+	public int[] getTopMountainPointClassification(int raceId, int k) throws IDNotRecognisedException {
+		return getRidersMountainPointClassificationRank(raceId, 0, k);
+	}
+
+	@Override
+	public RiderPosition getRiderStagePosition(int stageId, int riderId) throws IDNotRecognisedException {
+		Stage stage = findStage(stageId);
+		findRider(riderId);
+		StageResult result = getResult(stage, riderId);
+		if (result == null) {
+			return null; // rider has no result in the stage
+		}
+		return stageClassifications.get(stageId).getPosition(result);
+	}
+
+	@Override
+	public RiderPosition getRiderPosition(int raceId, int riderId) throws IDNotRecognisedException {
+		findRace(raceId);
+		findRider(riderId);
+		return classifyRace(raceId).getPosition(riderId); // null if the rider has no results in the race
+	}
+
+	@Override
+	public int[] getRidersRankAtCheckpoint(int stageId, int checkpointIndex, int offset, int limit)
+			throws IDNotRecognisedException {
+		findStage(stageId);
+		return liveStages.get(stageId).getRiderIDs(checkpointIndex, offset, endOf(offset, limit));
+	}
+
+	@Override
+	public RiderPosition getRiderCheckpointPosition(int stageId, int riderId, int checkpointIndex)
+			throws IDNotRecognisedException {
+		Stage stage = findStage(stageId);
+		findRider(riderId);
+		return liveStages.get(stageId).getPosition(riderId, checkpointIndex, getResult(stage, riderId)); // null if the rider has not passed it
+	}
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package cycling;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocates the unique IDs of one type of entity in CyclingPortal.java.
+ * Every portal owns its own sequences, so IDs are unique per portal rather
+ * than per JVM. IDs start at 1, are never reused, and are allocated in
+ * constant time from an atomic counter, so a sequence can be shared
+ * between threads.
+ */
+final class IdSequence implements Serializable {
+
+    // attributes
+    /** The last ID handed out by the sequence, or 0 if there is none. */
+    private final AtomicInteger lastID = new AtomicInteger();
+
+    // IdSequence methods
+    /**
+     * Allocates the next ID of the sequence.
+     * @return A new ID, greater than every ID allocated or observed before.
+     */
+    public int next() {
+        return lastID.incrementAndGet();
+    }
+
+    /**
+     * Records an ID that was allocated elsewhere, e.g. by a portal that was
+     * saved to file, so that the sequence never hands it out again.
+     * @param id The ID already in use.
+     */
+    public void observe(int id) {
+        lastID.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Restarts the sequence, so that the next ID allocated is 1.
+     */
+    public void reset() {
+        lastID.set(0);
+    }
+}
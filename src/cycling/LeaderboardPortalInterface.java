@@ -0,0 +1,273 @@
+package cycling;
+
+import java.time.LocalTime;
+
+/**
+ * LeaderboardPortalInterface interface. Extends CyclingPortalInterface with
+ * queries that return only the leading riders of a classification, or one
+ * page of it, for consumers that show part of a leaderboard rather than the
+ * whole field. The cost of these queries grows with the number of riders
+ * requested, not with the size of the field.
+ */
+public interface LeaderboardPortalInterface extends CyclingPortalInterface {
+
+	/**
+	 * Get the leading riders of a stage.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param stageId The ID of the stage being queried.
+	 * @param k       The number of riders requested.
+	 * @return The IDs of at most k riders, sorted by their elapsed time, as the
+	 *         first k riders returned by
+	 *         {@link #getRidersRankInStage(int)}. An empty list if there is no
+	 *         result for the stage or if k is not positive.
+	 * @throws IDNotRecognisedException If the ID does not match any stage in the
+	 *                                  system.
+	 */
+	int[] getTopRidersInStage(int stageId, int k) throws IDNotRecognisedException;
+
+	/**
+	 * Get the leading riders of the general classification of a race.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId The ID of the race being queried.
+	 * @param k      The number of riders requested.
+	 * @return The IDs of at most k riders, as the first k riders returned by
+	 *         {@link #getRidersGeneralClassificationRank(int)}. An empty list if
+	 *         there is no result for any stage in the race or if k is not
+	 *         positive.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the
+	 *                                  system.
+	 */
+	int[] getTopGeneralClassification(int raceId, int k) throws IDNotRecognisedException;
+
+	/**
+	 * Get the leading riders of the points classification of a race.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId The ID of the race being queried.
+	 * @param k      The number of riders requested.
+	 * @return The IDs of at most k riders, as the first k riders returned by
+	 *         {@link #getRidersPointClassificationRank(int)}. An empty list if
+	 *         there is no result for any stage in the race or if k is not
+	 *         positive.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the
+	 *                                  system.
+	 */
+	int[] getTopPointClassification(int raceId, int k) throws IDNotRecognisedException;
+
+	/**
+	 * Get the leading riders of the mountain classification of a race.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId The ID of the race being queried.
+	 * @param k      The number of riders requested.
+	 * @return The IDs of at most k riders, as the first k riders returned by
+	 *         {@link #getRidersMountainPointClassificationRank(int)}. An empty
+	 *         list if there is no result for any stage in the race or if k is not
+	 *         positive.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the
+	 *                                  system.
+	 */
+	int[] getTopMountainPointClassification(int raceId, int k) throws IDNotRecognisedException;
+
+	/**
+	 * Get a page of the riders of a stage, sorted by their elapsed time.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param stageId The ID of the stage being queried.
+	 * @param offset  The position of the first rider requested, where 0 is the
+	 *                leader.
+	 * @param limit   The maximum number of riders requested.
+	 * @return The IDs of at most limit riders, as the positions offset to
+	 *         offset + limit - 1 of {@link #getRidersRankInStage(int)}. An empty list if there is no
+	 *         result for the stage, or if the page starts after the last rider.
+	 * @throws IDNotRecognisedException If the ID does not match any stage in the
+	 *                                  system.
+	 */
+	int[] getRidersRankInStage(int stageId, int offset, int limit) throws IDNotRecognisedException;
+
+	/**
+	 * Get a page of the adjusted elapsed times of the riders of a stage.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param stageId The ID of the stage being queried.
+	 * @param offset  The position of the first rider requested, where 0 is the
+	 *                leader.
+	 * @param limit   The maximum number of riders requested.
+	 * @return At most limit adjusted elapsed times, as the positions offset to
+	 *         offset + limit - 1 of {@link #getRankedAdjustedElapsedTimesInStage(int)}. An empty list if there is no
+	 *         result for the stage, or if the page starts after the last rider.
+	 * @throws IDNotRecognisedException If the ID does not match any stage in the
+	 *                                  system.
+	 */
+	LocalTime[] getRankedAdjustedElapsedTimesInStage(int stageId, int offset, int limit)
+			throws IDNotRecognisedException;
+
+	/**
+	 * Get a page of the riders of the general classification of a race.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId  The ID of the race being queried.
+	 * @param offset  The position of the first rider requested, where 0 is the
+	 *                leader.
+	 * @param limit   The maximum number of riders requested.
+	 * @return The IDs of at most limit riders, as the positions offset to
+	 *         offset + limit - 1 of {@link #getRidersGeneralClassificationRank(int)}. An empty list if there is no
+	 *         result for any stage in the race, or if the page starts after the last rider.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the
+	 *                                  system.
+	 */
+	int[] getRidersGeneralClassificationRank(int raceId, int offset, int limit) throws IDNotRecognisedException;
+
+	/**
+	 * Get a page of the general classification times of a race.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId  The ID of the race being queried.
+	 * @param offset  The position of the first rider requested, where 0 is the
+	 *                leader.
+	 * @param limit   The maximum number of riders requested.
+	 * @return At most limit sums of adjusted elapsed times, as the positions offset to
+	 *         offset + limit - 1 of {@link #getGeneralClassificationTimesInRace(int)}. An empty list if there is no
+	 *         result for any stage in the race, or if the page starts after the last rider.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the
+	 *                                  system.
+	 */
+	LocalTime[] getGeneralClassificationTimesInRace(int raceId, int offset, int limit)
+			throws IDNotRecognisedException;
+
+	/**
+	 * Get a page of the riders of the points classification of a race.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId  The ID of the race being queried.
+	 * @param offset  The position of the first rider requested, where 0 is the
+	 *                leader.
+	 * @param limit   The maximum number of riders requested.
+	 * @return The IDs of at most limit riders, as the positions offset to
+	 *         offset + limit - 1 of {@link #getRidersPointClassificationRank(int)}. An empty list if there is no
+	 *         result for any stage in the race, or if the page starts after the last rider.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the
+	 *                                  system.
+	 */
+	int[] getRidersPointClassificationRank(int raceId, int offset, int limit) throws IDNotRecognisedException;
+
+	/**
+	 * Get a page of the riders of the mountain classification of a race.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId  The ID of the race being queried.
+	 * @param offset  The position of the first rider requested, where 0 is the
+	 *                leader.
+	 * @param limit   The maximum number of riders requested.
+	 * @return The IDs of at most limit riders, as the positions offset to
+	 *         offset + limit - 1 of {@link #getRidersMountainPointClassificationRank(int)}. An empty list if there is no
+	 *         result for any stage in the race, or if the page starts after the last rider.
+	 * @throws IDNotRecognisedException If the ID does not match any race in the
+	 *                                  system.
+	 */
+	int[] getRidersMountainPointClassificationRank(int raceId, int offset, int limit)
+			throws IDNotRecognisedException;
+
+	/**
+	 * Get the position of a rider in a stage: their rank by elapsed time, their
+	 * elapsed time and their gap to the stage leader.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param stageId The ID of the stage being queried.
+	 * @param riderId The ID of the rider.
+	 * @return The position of the rider in the stage, matching their place in
+	 *         {@link #getRidersRankInStage(int)}. Null if there is no result
+	 *         registered for the rider in the stage.
+	 * @throws IDNotRecognisedException If the ID does not match to any rider or
+	 *                                  stage in the system.
+	 */
+	RiderPosition getRiderStagePosition(int stageId, int riderId) throws IDNotRecognisedException;
+
+	/**
+	 * Get the position of a rider in the general classification of a race: their
+	 * rank, the sum of their adjusted elapsed times and their gap to the leader.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param raceId  The ID of the race being queried.
+	 * @param riderId The ID of the rider.
+	 * @return The position of the rider in the race, matching their place in
+	 *         {@link #getRidersGeneralClassificationRank(int)}. Null if there is
+	 *         no result registered for the rider in any stage of the race.
+	 * @throws IDNotRecognisedException If the ID does not match to any rider or
+	 *                                  race in the system.
+	 */
+	RiderPosition getRiderPosition(int raceId, int riderId) throws IDNotRecognisedException;
+
+	/**
+	 * Get a page of the riders through one checkpoint of a stage, in the order
+	 * they passed it, while the stage is being raced. Only checkpoints recorded
+	 * one at a time by the portal are ranked, and riders are ranked there as
+	 * soon as they pass, before they finish.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param stageId         The ID of the stage being queried.
+	 * @param checkpointIndex The index of the checkpoint: 0 for the start, then
+	 *                        one per segment of the stage in order, then the
+	 *                        finish line.
+	 * @param offset          The position of the first rider returned, where 0
+	 *                        is the first rider through the checkpoint.
+	 * @param limit           The maximum number of riders returned.
+	 * @return The IDs of at most limit riders, sorted by the time they passed
+	 *         the checkpoint. An empty list if no rider has passed it, or if
+	 *         the index is not a checkpoint of the stage.
+	 * @throws IDNotRecognisedException If the ID does not match any stage in the
+	 *                                  system.
+	 */
+	int[] getRidersRankAtCheckpoint(int stageId, int checkpointIndex, int offset, int limit)
+			throws IDNotRecognisedException;
+
+	/**
+	 * Get the position of a rider at one checkpoint of a stage while the stage
+	 * is being raced: their place among the riders through it, the time they
+	 * passed it and their gap to the first rider through.
+	 * <p>
+	 * The state of this LeaderboardPortalInterface must be unchanged if any
+	 * exceptions are thrown.
+	 * 
+	 * @param stageId         The ID of the stage being queried.
+	 * @param riderId         The ID of the rider.
+	 * @param checkpointIndex The index of the checkpoint, as in
+	 *                        {@link #getRidersRankAtCheckpoint(int, int, int, int)}.
+	 * @return The position of the rider at the checkpoint, matching their place
+	 *         in {@link #getRidersRankAtCheckpoint(int, int, int, int)}. Null if
+	 *         no time is recorded for the rider at the checkpoint.
+	 * @throws IDNotRecognisedException If the ID does not match to any rider or
+	 *                                  stage in the system.
+	 */
+	RiderPosition getRiderCheckpointPosition(int stageId, int riderId, int checkpointIndex)
+			throws IDNotRecognisedException;
+
+}
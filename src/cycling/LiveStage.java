@@ -0,0 +1,200 @@
+package cycling;
+
+import java.io.Serializable;
+import java.time.LocalTime;
+import java.util.ArrayList;
+
+/**
+ * Keeps the order in which the riders of one stage of CyclingPortal.java
+ * pass each of its checkpoints while the stage is being raced, as their
+ * checkpoints are recorded one at a time. Riders at a checkpoint are ranked
+ * by the second of the day they passed it, as the points of its segment are
+ * awarded, and then by rider ID. Each checkpoint is ranked in its own
+ * RankTree, so the order at a checkpoint, and the place of a rider in it,
+ * are read in O(log n) while the rest of the field is still on the course.
+ * The checkpoints of a rider are kept here only until they finish; from
+ * then on the rider stays ranked at every checkpoint through their result.
+ */
+final class LiveStage implements Serializable {
+
+    // attributes
+    /** The checkpoints recorded for each rider who has not finished, null where none is recorded yet. */
+    private final IntObjectMap<LocalTime[]> checkpoints = new IntObjectMap<LocalTime[]>();
+    /** The IDs of the riders through each checkpoint, keyed by the second they passed it and then rider ID. */
+    private final ArrayList<RankTree<Integer>> rankings = new ArrayList<RankTree<Integer>>();
+
+    // LiveStage methods
+    /**
+     * Returns the time a rider who has not finished passed a checkpoint.
+     * @param riderID The ID of the rider.
+     * @param index The index of the checkpoint.
+     * @return The time the rider passed the checkpoint, or null if it is not
+     * recorded or the rider has finished.
+     */
+    public LocalTime getCheckpoint(int riderID, int index) {
+        LocalTime[] times = checkpoints.get(riderID);
+        return times == null || index < 0 || index >= times.length ? null : times[index];
+    }
+
+    /**
+     * Returns whether a time would keep the checkpoints of a rider in order:
+     * later than every checkpoint recorded before it, and earlier than every
+     * checkpoint recorded after it.
+     * @param riderID The ID of the rider.
+     * @param index The index of the checkpoint.
+     * @param time The time the rider passed the checkpoint.
+     * @return True if the checkpoints of the rider would still strictly increase.
+     */
+    public boolean isInOrder(int riderID, int index, LocalTime time) {
+        LocalTime[] times = checkpoints.get(riderID);
+        if (times == null) {
+            return true;
+        }
+        for (int i = 0; i < times.length; i++) {
+            if (times[i] != null && (i < index ? !times[i].isBefore(time) : i > index && !times[i].isAfter(time))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the time a rider passed a checkpoint and ranks the rider at
+     * the checkpoint in O(log n). The checkpoint must not be recorded yet.
+     * @param riderID The ID of the rider.
+     * @param index The index of the checkpoint: 0 for the start, then one per
+     * segment in order, then the finish.
+     * @param time The time the rider passed the checkpoint.
+     * @param count The number of checkpoints of the stage.
+     * @return Every checkpoint of the rider if this was the last one missing,
+     * in which case the rider is no longer kept as racing, or null if some
+     * are still missing.
+     */
+    public LocalTime[] record(int riderID, int index, LocalTime time, int count) {
+        while (rankings.size() < count) {
+            rankings.add(new RankTree<Integer>());
+        }
+        LocalTime[] times = checkpoints.get(riderID);
+        if (times == null) {
+            times = new LocalTime[count];
+            checkpoints.put(riderID, times);
+        }
+        times[index] = time;
+        rankings.get(index).put(keyOf(time, riderID), riderID);
+        for (LocalTime recorded: times) {
+            if (recorded == null) {
+                return null;
+            }
+        }
+        checkpoints.remove(riderID); // the rider has finished, and stays ranked through their result
+        return times;
+    }
+
+    /**
+     * Returns whether a rider has checkpoints recorded but has not finished.
+     * @param riderID The ID of the rider.
+     * @return True if the rider is racing the stage.
+     */
+    public boolean isRacing(int riderID) {
+        return checkpoints.containsKey(riderID);
+    }
+
+    /**
+     * Removes every checkpoint recorded for a rider who has not finished from
+     * the rankings.
+     * @param riderID The ID of the rider.
+     * @return True if the rider had any checkpoint recorded.
+     */
+    public boolean remove(int riderID) {
+        LocalTime[] times = checkpoints.remove(riderID);
+        if (times == null) {
+            return false;
+        }
+        for (int i = 0; i < times.length; i++) {
+            if (times[i] != null) {
+                rankings.get(i).remove(keyOf(times[i], riderID));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a finished rider from the rankings, if their checkpoints were
+     * recorded one at a time, in O(log n) per checkpoint.
+     * @param result The result of the rider in the stage.
+     */
+    public void remove(StageResult result) {
+        for (int i = 0; i < rankings.size() && i < result.getNumberOfCheckpoints(); i++) {
+            rankings.get(i).remove(keyOf(result.getIntCheckpoint(i), result.getRiderID()));
+        }
+    }
+
+    /**
+     * Returns a range of the riders through a checkpoint in O(log n + (to - from)).
+     * @param index The index of the checkpoint.
+     * @param from The first position of the range, inclusive, where 0 is the first rider through.
+     * @param to The last position of the range, exclusive.
+     * @return The IDs of the riders in the range, in the order they passed the
+     * checkpoint. Empty if no rider has passed it.
+     */
+    public int[] getRiderIDs(int index, int from, int to) {
+        if (index < 0 || index >= rankings.size()) {
+            return new int[0];
+        }
+        ArrayList<Integer> riders = rankings.get(index).values(from, to);
+        int[] riderIDs = new int[riders.size()];
+        for (int i = 0; i < riderIDs.length; i++) {
+            riderIDs[i] = riders.get(i);
+        }
+        return riderIDs;
+    }
+
+    /**
+     * Returns the place of a rider among the riders through a checkpoint in O(log n).
+     * @param riderID The ID of the rider.
+     * @param index The index of the checkpoint.
+     * @param result The result of the rider in the stage, or null if they have not finished.
+     * @return The position of the rider, with the time they passed the
+     * checkpoint and their gap to the first rider through, or null if the
+     * checkpoint of the rider was not recorded one at a time.
+     */
+    public RiderPosition getPosition(int riderID, int index, StageResult result) {
+        LocalTime racing = getCheckpoint(riderID, index);
+        int time;
+        if (racing != null) {
+            time = racing.toSecondOfDay();
+        } else if (result != null && index >= 0 && index < result.getNumberOfCheckpoints()) {
+            time = result.getIntCheckpoint(index); // the rider has finished
+        } else {
+            return null;
+        }
+        if (index >= rankings.size() || rankings.get(index).get(keyOf(time, riderID)) == null) {
+            return null; // the result was registered whole, not streamed
+        }
+        RankTree<Integer> ranking = rankings.get(index);
+        return new RiderPosition(riderID, ranking.rankOf(keyOf(time, riderID)) + 1, time,
+                (int) (ranking.keyAt(0) >>> 32));
+    }
+
+    /**
+     * Packs the time a rider passed a checkpoint and their ID into a key
+     * ordered by time and then rider ID.
+     * @param time The time the rider passed the checkpoint.
+     * @param riderID The ID of the rider.
+     * @return The second of the day in the high 32 bits and the rider ID in the low 32 bits.
+     */
+    private static long keyOf(LocalTime time, int riderID) {
+        return keyOf(time.toSecondOfDay(), riderID);
+    }
+
+    /**
+     * Packs the second of the day a rider passed a checkpoint and their ID
+     * into a key ordered by time and then rider ID.
+     * @param time The second of the day the rider passed the checkpoint.
+     * @param riderID The ID of the rider.
+     * @return The time in the high 32 bits and the rider ID in the low 32 bits.
+     */
+    private static long keyOf(int time, int riderID) {
+        return ((long) time << 32) | (riderID & 0xFFFFFFFFL);
+    }
+}
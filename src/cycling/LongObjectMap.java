@@ -0,0 +1,186 @@
+package cycling;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive long keys to objects, used by
+ * CyclingPortal.java for composite keys such as a packed pair of IDs.
+ * It works exactly like IntObjectMap, with linear probing and removals
+ * that shift the following entries back.
+ * @param <V> The type of the values stored in the map.
+ */
+final class LongObjectMap<V> implements Serializable {
+
+    // attributes
+    /** The smallest capacity the table is ever allocated with. */
+    private static final int MIN_CAPACITY = 16;
+
+    /** The keys of the table. A slot is free when its value is null. */
+    private long[] keys;
+    /** The values of the table, stored in the same slot as their key. */
+    private Object[] values;
+    /** The number of entries in the map. */
+    private int size;
+    /** The capacity of the table minus one, used to wrap slot indexes. */
+    private int mask;
+
+    // LongObjectMap methods
+    /**
+     * Returns the value mapped to a key.
+     * @param key The key to look up.
+     * @return The value mapped to the key, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a key is mapped to a value.
+     * @param key The key to look up.
+     * @return True if the key is in the map.
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous mapping.
+     * @param key The key to map.
+     * @param value The value to map the key to. Must not be null.
+     * @return The value previously mapped to the key, or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("LongObjectMap does not accept null values.");
+        }
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) >> 1) { // keeps the load factor at or below 0.5
+            resize((mask + 1) << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping of a key.
+     * @param key The key to remove.
+     * @return The value that was mapped to the key, or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V removed = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry from the map.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the home slot of a key, spreading the bits of
+     * packed sequential IDs across the whole table.
+     * @param key The key to hash.
+     * @return The slot the probe sequence for the key starts at.
+     */
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int folded = (int) (hash ^ (hash >>> 32)); // brings the bits of both halves of the key together
+        return (folded ^ (folded >>> 16)) & mask;
+    }
+
+    /**
+     * Empties a slot and moves back any later entries of the same
+     * probe run that could otherwise no longer be reached.
+     * @param free The slot being emptied.
+     */
+    private void shiftBack(int free) {
+        int slot = free;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) {
+                break;
+            }
+            int home = slotOf(keys[slot]);
+            // The entry may only move back if its home slot does not lie
+            // cyclically between the free slot and its current slot.
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                free = slot;
+            }
+        }
+        values[free] = null;
+    }
+
+    /**
+     * Rehashes every entry into a table of a new capacity.
+     * @param capacity The new capacity, which must be a power of two.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // constructor
+    /**
+     * Constructor for LongObjectMap. Creates an empty map.
+     */
+    LongObjectMap() {
+        keys = new long[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        mask = MIN_CAPACITY - 1;
+    }
+}
@@ -0,0 +1,88 @@
+package cycling;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free, unbounded queue for many producer threads and a single
+ * consumer thread, used by ResultIngestor to hand result submissions to
+ * the thread that applies them. A producer appends its node with a single
+ * atomic swap of the tail and then links it behind the previous tail; the
+ * consumer follows the links from a dummy head node and never contends
+ * with the producers.
+ * <p>
+ * Between the swap and the link, the node of a producer is not yet visible
+ * to the consumer, so poll() may briefly report the queue as empty while an
+ * offer is in progress. The element becomes visible once offer() returns.
+ * @param <E> The type of the elements of the queue.
+ */
+final class MpscQueue<E> {
+
+    /**
+     * A node of the queue.
+     * @param <E> The type of the element of the node.
+     */
+    private static final class Node<E> {
+        /** The element of the node, or null once it has been polled. */
+        private E value;
+        /** The node offered after this one, or null if it is not linked yet. */
+        private volatile Node<E> next;
+
+        /**
+         * Constructor for Node. Creates an unlinked node.
+         * @param value The element of the node.
+         */
+        private Node(E value) {
+            this.value = value;
+        }
+    }
+
+    // attributes
+    /** The last node offered, swapped by the producers. */
+    private final AtomicReference<Node<E>> tail;
+    /** The node before the first element, only read and written by the consumer. */
+    private Node<E> head;
+
+    // MpscQueue methods
+    /**
+     * Appends an element to the queue. May be called by any thread.
+     * @param value The element to append. Must not be null.
+     */
+    public void offer(E value) {
+        Node<E> node = new Node<E>(value);
+        tail.getAndSet(node).next = node;
+    }
+
+    /**
+     * Removes the first element of the queue. Must only be called by the
+     * consumer thread.
+     * @return The first element, or null if the queue is empty.
+     */
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        E value = next.value;
+        next.value = null; // the node becomes the new dummy head
+        head = next;
+        return value;
+    }
+
+    /**
+     * Returns whether the queue has no element visible to the consumer. Must
+     * only be called by the consumer thread.
+     * @return True if poll() would return null.
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    // constructor
+    /**
+     * Constructor for MpscQueue. Creates an empty queue.
+     */
+    MpscQueue() {
+        head = new Node<E>(null);
+        tail = new AtomicReference<Node<E>>(head);
+    }
+}
@@ -18,9 +18,6 @@ public class Race implements Serializable {
     private String description;
     /** An ArrayList containing all stages of the race. */
     private ArrayList<Stage> stages = new ArrayList<Stage>();
-    
-    /** A static ArrayList containing all raceIDs in the system. */
-    static ArrayList<Integer> raceIDs = new ArrayList<Integer>();
 
     // Race methods
     /**
@@ -55,33 +52,6 @@ public class Race implements Serializable {
         + ", Total length: " + totalLength;
     }
 
-    /**
-	 * Returns an array of raceIDs.
-	 * @return An int array of IDs for all of the existing races.
-	 */
-    public static int[] getRaceIDs() {
-        int[] arrayRaceIDs = new int[raceIDs.size()];
-        for (int i = 0; i < arrayRaceIDs.length; i++) {
-            arrayRaceIDs[i] = raceIDs.get(i).intValue();
-        }
-        return arrayRaceIDs;
-    }    
-
-    /**
-	 * Removes the specified raceID from the raceIDs arrayList.
-	 * @param raceID The ID to be removed.
-	 */
-    public static void removeRaceID(Integer raceID) {
-        raceIDs.remove(raceID);
-    }
-
-    /**
-    * Deletes all race IDs in the system.
-    */
-    public static void clearAll() {
-        raceIDs.clear();
-    }
-
     // Stage methods
     /**
 	 * Adds a stage to the race.
@@ -145,25 +115,13 @@ public class Race implements Serializable {
 	 * created. It will not return anything, as a constructor 
 	 * should, but it will take in necessary parameters 
      * to instantiate the Race object.
+     * @param raceID The unique ID of the race, allocated by the portal
      * @param name The name of the race
      * @param description The description of the race
 	 */
-    public Race(String name, String description) {
+    public Race(int raceID, String name, String description) {
+        this.raceID = raceID;
         this.name = name;
         this.description = description;
-        
-        if (raceIDs.size() == 0) { // Generating the ID
-            this.raceID = 1;
-            raceIDs.add(this.raceID);
-        } else {
-            Integer max = raceIDs.get(0);
-            for (int i = 0; i < raceIDs.size(); i++) {
-                if (raceIDs.get(i) > max) {
-                    max = raceIDs.get(i);                    
-                }
-            }
-            this.raceID = max + 1;
-            raceIDs.add(this.raceID);
-        }
     }
 }
\ No newline at end of file
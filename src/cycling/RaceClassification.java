@@ -0,0 +1,415 @@
+package cycling;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Keeps the classifications of one race of CyclingPortal.java.
+ * Every rider with results in the race has running totals of their
+ * adjusted elapsed times, points and mountain points, and the riders are
+ * kept ranked by each total in a RankTree. A range of k positions of a
+ * classification are read in O(log n + k), and the total and position
+ * of a single rider in O(log n).
+ * <p>
+ * The totals are maintained one stage at a time. The classification
+ * remembers what each stage last contributed, and when the results of a
+ * stage change only the contribution of that stage is taken back out and
+ * put in again. Changes are applied lazily: the portal marks a stage as
+ * stale and applies its adjusted times and points before the next query
+ * of the race.
+ */
+final class RaceClassification implements Serializable {
+
+    /**
+     * The running totals of one rider in the race.
+     */
+    static final class Standing implements Serializable {
+        /** The ID of the rider. */
+        private final int riderID;
+        /** The sum of the adjusted elapsed times of the rider, in seconds. */
+        private int time;
+        /** The sum of the points of the rider. */
+        private int points;
+        /** The sum of the mountain points of the rider. */
+        private int mountainPoints;
+        /** The number of stages of the race in which the rider has a result. */
+        private int stages;
+
+        /**
+         * Constructor for Standing. Creates an empty standing.
+         * @param riderID The ID of the rider.
+         */
+        private Standing(int riderID) {
+            this.riderID = riderID;
+        }
+
+        /**
+         * Gets the ID of the rider.
+         * @return The ID of the rider.
+         */
+        public int getRiderID() {
+            return riderID;
+        }
+
+        /**
+         * Gets the total adjusted elapsed time of the rider.
+         * @return The total time in seconds.
+         */
+        public int getTime() {
+            return time;
+        }
+
+        /**
+         * Gets the total points of the rider.
+         * @return The total points.
+         */
+        public int getPoints() {
+            return points;
+        }
+
+        /**
+         * Gets the total mountain points of the rider.
+         * @return The total mountain points.
+         */
+        public int getMountainPoints() {
+            return mountainPoints;
+        }
+    }
+
+    /**
+     * What one stage last contributed to the classification.
+     */
+    private static final class Contribution implements Serializable {
+        /** The ID of the stage. */
+        private final int stageID;
+        /** The riders of the stage when it was last applied. */
+        private int[] riderIDs = new int[0];
+        /** The adjusted elapsed times of those riders, in seconds. */
+        private int[] times = new int[0];
+        /** The points of those riders. */
+        private int[] points = new int[0];
+        /** The mountain points of those riders. */
+        private int[] mountainPoints = new int[0];
+        /** True if the results of the stage changed since it was last applied. */
+        private boolean stale;
+
+        /**
+         * Constructor for Contribution. Creates an empty contribution.
+         * @param stageID The ID of the stage.
+         */
+        private Contribution(int stageID) {
+            this.stageID = stageID;
+        }
+    }
+
+    // attributes
+    /** The standing of every rider in the race, indexed by rider ID. */
+    private final IntObjectMap<Standing> standings = new IntObjectMap<Standing>();
+    /** The standings, keyed by total time and then rider ID. */
+    private final RankTree<Standing> byTime = new RankTree<Standing>();
+    /** The standings, keyed by descending total points and then rider ID. */
+    private final RankTree<Standing> byPoints = new RankTree<Standing>();
+    /** The standings, keyed by descending total mountain points and then rider ID. */
+    private final RankTree<Standing> byMountainPoints = new RankTree<Standing>();
+    /** The last contribution of every stage of the race, indexed by stage ID. */
+    private final IntObjectMap<Contribution> contributions = new IntObjectMap<Contribution>();
+    /** The contributions whose stage has changed since they were applied. */
+    private final ArrayList<Contribution> staleContributions = new ArrayList<Contribution>();
+
+    // RaceClassification methods
+    /**
+     * Marks a stage of the race as changed, so that its adjusted elapsed
+     * times and points are applied again before the next query.
+     * @param stageID The ID of the stage.
+     */
+    public void invalidate(int stageID) {
+        Contribution contribution = contributions.get(stageID);
+        if (contribution == null) {
+            contribution = new Contribution(stageID);
+            contributions.put(stageID, contribution);
+        }
+        if (!contribution.stale) {
+            contribution.stale = true;
+            staleContributions.add(contribution);
+        }
+    }
+
+    /**
+     * Returns the stages that have changed since they were last applied.
+     * @return The IDs of the stale stages.
+     */
+    public int[] getStaleStageIDs() {
+        int[] stageIDs = new int[staleContributions.size()];
+        for (int i = 0; i < stageIDs.length; i++) {
+            stageIDs[i] = staleContributions.get(i).stageID;
+        }
+        return stageIDs;
+    }
+
+    /**
+     * Returns whether the classification can be queried without applying
+     * any stage first.
+     * @return True if no stage has changed since it was last applied.
+     */
+    public boolean isUpToDate() {
+        return staleContributions.isEmpty();
+    }
+
+    /**
+     * Replaces the contribution of a stage with its current adjusted
+     * elapsed times and points. Only the riders of this stage are updated.
+     * @param stageID The ID of the stage.
+     * @param ranked The results of the stage with their adjusted elapsed
+     * times and points up to date. Empty if the stage has no results.
+     */
+    public void apply(int stageID, StageResult[] ranked) {
+        apply(new int[] {stageID}, new StageResult[][] {ranked});
+    }
+
+    /**
+     * Replaces the contributions of several stages with their current
+     * adjusted elapsed times and points. The changes of all the stages are
+     * first summed per rider, so that each rider is moved in the rankings
+     * once, however many of the stages they rode.
+     * @param stageIDs The IDs of the stages.
+     * @param ranked The results of each stage, at the same index as its ID,
+     * with their adjusted elapsed times and points up to date.
+     */
+    public void apply(int[] stageIDs, StageResult[][] ranked) {
+        IntObjectMap<int[]> deltas = new IntObjectMap<int[]>();
+        ArrayList<int[]> changed = new ArrayList<int[]>();
+        for (int s = 0; s < stageIDs.length; s++) {
+            Contribution contribution = contributions.get(stageIDs[s]);
+            if (contribution == null) {
+                contribution = new Contribution(stageIDs[s]);
+                contributions.put(stageIDs[s], contribution);
+            }
+            sum(contribution, -1, deltas, changed);
+            StageResult[] results = ranked[s];
+            contribution.riderIDs = new int[results.length];
+            contribution.times = new int[results.length];
+            contribution.points = new int[results.length];
+            contribution.mountainPoints = new int[results.length];
+            for (int i = 0; i < results.length; i++) {
+                contribution.riderIDs[i] = results[i].getRiderID();
+                contribution.times[i] = results[i].getIntAdjustedElapsedTime();
+                contribution.points[i] = results[i].getPoints();
+                contribution.mountainPoints[i] = results[i].getMountainPoints();
+            }
+            sum(contribution, 1, deltas, changed);
+            if (contribution.stale) {
+                contribution.stale = false;
+                staleContributions.remove(contribution);
+            }
+        }
+        for (int[] delta: changed) {
+            if (delta[1] != 0 || delta[2] != 0 || delta[3] != 0 || delta[4] != 0) {
+                add(delta[0], delta[1], delta[2], delta[3], delta[4]);
+            }
+        }
+    }
+
+    /**
+     * Takes the contribution of a stage out of the classification,
+     * e.g. when the stage is removed.
+     * @param stageID The ID of the stage.
+     */
+    public void removeStage(int stageID) {
+        Contribution contribution = contributions.remove(stageID);
+        if (contribution != null) {
+            withdraw(contribution);
+            if (contribution.stale) {
+                staleContributions.remove(contribution);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of riders in the classification.
+     * @return The number of riders with results in the race.
+     */
+    public int size() {
+        return byTime.size();
+    }
+
+    /**
+     * Returns the standings of the race in general classification order.
+     * @return The standings, from the lowest total time to the highest.
+     */
+    public ArrayList<Standing> getStandings() {
+        return byTime.values();
+    }
+
+    /**
+     * Returns a range of the standings of the general classification in O(log n + (to - from)).
+     * @param from The first position of the range, inclusive, where 0 is the leader.
+     * @param to The last position of the range, exclusive.
+     * @return The standings in the range, from the lowest total time to the highest.
+     */
+    public ArrayList<Standing> getStandings(int from, int to) {
+        return byTime.values(from, to);
+    }
+
+    /**
+     * Returns a range of the standings of the points classification in O(log n + (to - from)).
+     * @param from The first position of the range, inclusive, where 0 is the leader.
+     * @param to The last position of the range, exclusive.
+     * @return The standings in the range, from the most points to the fewest.
+     */
+    public ArrayList<Standing> getPointsStandings(int from, int to) {
+        return byPoints.values(from, to);
+    }
+
+    /**
+     * Returns a range of the standings of the mountain classification in O(log n + (to - from)).
+     * @param from The first position of the range, inclusive, where 0 is the leader.
+     * @param to The last position of the range, exclusive.
+     * @return The standings in the range, from the most mountain points to the fewest.
+     */
+    public ArrayList<Standing> getMountainPointsStandings(int from, int to) {
+        return byMountainPoints.values(from, to);
+    }
+
+    /**
+     * Returns the standing of a rider.
+     * @param riderID The ID of the rider.
+     * @return The standing of the rider, or null if the rider has no results in the race.
+     */
+    public Standing getStanding(int riderID) {
+        return standings.get(riderID);
+    }
+
+    /**
+     * Returns the position of a rider in O(log n).
+     * @param riderID The ID of the rider.
+     * @return The position of the rider, where 0 is the leader,
+     * or -1 if the rider has no results in the race.
+     */
+    public int getRank(int riderID) {
+        Standing standing = standings.get(riderID);
+        if (standing == null) {
+            return -1;
+        }
+        return byTime.rankOf(timeKeyOf(standing));
+    }
+
+    /**
+     * Returns the position of a rider in the general classification, with
+     * their gap to the leader, in O(log n).
+     * @param riderID The ID of the rider.
+     * @return The position of the rider, or null if the rider has no results in the race.
+     */
+    public RiderPosition getPosition(int riderID) {
+        Standing standing = standings.get(riderID);
+        if (standing == null) {
+            return null;
+        }
+        return new RiderPosition(riderID, byTime.rankOf(timeKeyOf(standing)) + 1,
+                standing.time, byTime.select(0).time);
+    }
+
+    /**
+     * Adds a contribution, or takes it out, of the changes summed per rider.
+     * @param contribution The contribution.
+     * @param sign 1 to add the contribution, -1 to take it out.
+     * @param deltas The changes of each rider, indexed by rider ID: the rider
+     * ID followed by the time, points, mountain points and stages to add.
+     * @param changed The same changes, in the order the riders were first seen.
+     */
+    private static void sum(Contribution contribution, int sign, IntObjectMap<int[]> deltas,
+            ArrayList<int[]> changed) {
+        for (int i = 0; i < contribution.riderIDs.length; i++) {
+            int[] delta = deltas.get(contribution.riderIDs[i]);
+            if (delta == null) {
+                delta = new int[] {contribution.riderIDs[i], 0, 0, 0, 0};
+                deltas.put(contribution.riderIDs[i], delta);
+                changed.add(delta);
+            }
+            delta[1] += sign * contribution.times[i];
+            delta[2] += sign * contribution.points[i];
+            delta[3] += sign * contribution.mountainPoints[i];
+            delta[4] += sign;
+        }
+    }
+
+    /**
+     * Subtracts the last contribution of a stage from the standings.
+     * @param contribution The contribution to be subtracted.
+     */
+    private void withdraw(Contribution contribution) {
+        for (int i = 0; i < contribution.riderIDs.length; i++) {
+            add(contribution.riderIDs[i], -contribution.times[i], -contribution.points[i],
+                    -contribution.mountainPoints[i], -1);
+        }
+        contribution.riderIDs = new int[0];
+        contribution.times = new int[0];
+        contribution.points = new int[0];
+        contribution.mountainPoints = new int[0];
+    }
+
+    /**
+     * Adds to the standing of a rider and moves the rider to their new
+     * positions, dropping the rider once they have no stages left.
+     * Classifications whose total does not change are not touched.
+     * @param riderID The ID of the rider.
+     * @param time The time to add, in seconds.
+     * @param points The points to add.
+     * @param mountainPoints The mountain points to add.
+     * @param stages The number of stages to add.
+     */
+    private void add(int riderID, int time, int points, int mountainPoints, int stages) {
+        Standing standing = standings.get(riderID);
+        boolean isNew = standing == null;
+        if (isNew) {
+            standing = new Standing(riderID);
+            standings.put(riderID, standing);
+        }
+        boolean dropped = standing.stages + stages == 0;
+        if (!isNew && (time != 0 || dropped)) {
+            byTime.remove(timeKeyOf(standing));
+        }
+        if (!isNew && (points != 0 || dropped)) {
+            byPoints.remove(pointsKeyOf(standing.points, riderID));
+        }
+        if (!isNew && (mountainPoints != 0 || dropped)) {
+            byMountainPoints.remove(pointsKeyOf(standing.mountainPoints, riderID));
+        }
+        standing.time += time;
+        standing.points += points;
+        standing.mountainPoints += mountainPoints;
+        standing.stages += stages;
+        if (dropped) {
+            standings.remove(riderID);
+            return;
+        }
+        if (isNew || time != 0) {
+            byTime.put(timeKeyOf(standing), standing);
+        }
+        if (isNew || points != 0) {
+            byPoints.put(pointsKeyOf(standing.points, riderID), standing);
+        }
+        if (isNew || mountainPoints != 0) {
+            byMountainPoints.put(pointsKeyOf(standing.mountainPoints, riderID), standing);
+        }
+    }
+
+    /**
+     * Returns the key of a standing in the time ranking.
+     * @param standing The standing.
+     * @return The total time in the high 32 bits and the rider ID in the low 32 bits.
+     */
+    private static long timeKeyOf(Standing standing) {
+        return ((long) standing.time << 32) | (standing.riderID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the key of a rider in a points ranking. Negating the points
+     * makes the rider with the most points come first.
+     * @param points The total points of the rider.
+     * @param riderID The ID of the rider.
+     * @return The negated points in the high 32 bits and the rider ID in the low 32 bits.
+     */
+    private static long pointsKeyOf(int points, int riderID) {
+        return ((long) -points << 32) | (riderID & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,94 @@
+package cycling;
+
+import java.io.Serializable;
+
+/**
+ * The results of one race of CyclingPortal.java: their values, stored
+ * column by column in a ResultStore, and an index of them by their packed
+ * stage and rider IDs. Each race keeps its results apart from those of
+ * other races, so registering or deleting a result in one race never moves
+ * or rehashes anything another race is reading.
+ */
+final class RaceResults implements Serializable {
+
+    // attributes
+    /** The values of every result of the race. */
+    private final ResultStore store = new ResultStore();
+    /** The results of the race, indexed by their packed stage and rider IDs. */
+    private final LongObjectMap<StageResult> index = new LongObjectMap<StageResult>();
+
+    // RaceResults methods
+    /**
+     * Stores a new result and indexes it.
+     * @param stageID The ID of the stage of the result.
+     * @param riderID The ID of the rider of the result.
+     * @param raceID The ID of the race of the result.
+     * @param elapsedTime The elapsed time of the result, in seconds.
+     * @param checkpointTimes The checkpoints of the result in seconds of the day.
+     * @return The new result.
+     */
+    public StageResult add(int stageID, int riderID, int raceID, int elapsedTime, int[] checkpointTimes) {
+        StageResult result = store.add(stageID, riderID, raceID, elapsedTime, checkpointTimes);
+        index.put(keyOf(stageID, riderID), result);
+        return result;
+    }
+
+    /**
+     * Stores and indexes a copy of a result held by another store, e.g. one
+     * read back from a saved portal.
+     * @param result The result to be copied.
+     * @return The copy.
+     */
+    public StageResult copyOf(StageResult result) {
+        StageResult copy = store.copyOf(result);
+        index.put(keyOf(copy.getStageID(), copy.getRiderID()), copy);
+        return copy;
+    }
+
+    /**
+     * Removes a result from the index and from the store.
+     * The result must not be used afterwards.
+     * @param result The result to be removed.
+     */
+    public void remove(StageResult result) {
+        index.remove(keyOf(result.getStageID(), result.getRiderID()));
+        store.remove(result);
+    }
+
+    /**
+     * Looks up the result of a rider in a stage.
+     * @param stageID The ID of the stage.
+     * @param riderID The ID of the rider.
+     * @return The result of the rider in the stage, or null if there is none.
+     */
+    public StageResult get(int stageID, int riderID) {
+        return index.get(keyOf(stageID, riderID));
+    }
+
+    /**
+     * Returns the number of results of the race.
+     * @return The number of results.
+     */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Returns the result stored in a row.
+     * @param row The row, from 0 to size() - 1.
+     * @return The result of the row.
+     */
+    public StageResult getResult(int row) {
+        return store.getResult(row);
+    }
+
+    /**
+     * Packs a stage ID and a rider ID into a key of the index.
+     * @param stageID The ID of the stage.
+     * @param riderID The ID of the rider.
+     * @return The stage ID in the high 32 bits and the rider ID in the low 32 bits.
+     */
+    private static long keyOf(int stageID, int riderID) {
+        return ((long) stageID << 32) | (riderID & 0xFFFFFFFFL);
+    }
+}
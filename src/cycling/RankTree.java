@@ -0,0 +1,408 @@
+package cycling;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * An order-statistic tree from primitive long keys to objects, used by
+ * CyclingPortal.java to keep classifications sorted as results arrive.
+ * The tree is a treap: nodes are ordered by key and heap-ordered by a
+ * random priority, so every operation takes O(log n) expected time. Each
+ * node also counts the nodes below it, which lets the tree find the entry
+ * at a given rank, or the rank of a given key, in O(log n).
+ * @param <V> The type of the values stored in the tree.
+ */
+final class RankTree<V> implements Serializable {
+
+    /**
+     * A node of the tree.
+     * @param <V> The type of the value of the node.
+     */
+    private static final class Node<V> implements Serializable {
+        /** The key of the node. */
+        private final long key;
+        /** The value of the node. */
+        private V value;
+        /** The heap priority of the node. */
+        private final int priority;
+        /** The number of nodes in the subtree rooted at this node. */
+        private int size = 1;
+        /** The subtree of smaller keys. */
+        private Node<V> left;
+        /** The subtree of larger keys. */
+        private Node<V> right;
+
+        /**
+         * Constructor for Node. Creates a leaf.
+         * @param key The key of the node.
+         * @param value The value of the node.
+         * @param priority The heap priority of the node.
+         */
+        private Node(long key, V value, int priority) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    // attributes
+    /** The root of the tree, or null if the tree is empty. */
+    private Node<V> root;
+    /** The state of the xorshift generator that draws the priorities. */
+    private int seed = 0x2545F491;
+
+    // RankTree methods
+    /**
+     * Returns the value mapped to a key.
+     * @param key The key to look up.
+     * @return The value mapped to the key, or null if there is none.
+     */
+    public V get(long key) {
+        Node<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous mapping.
+     * @param key The key to map.
+     * @param value The value to map the key to. Must not be null.
+     * @return The value previously mapped to the key, or null if there was none.
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("RankTree does not accept null values.");
+        }
+        Node<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                V previous = node.value;
+                node.value = value;
+                return previous;
+            }
+        }
+        root = insert(root, new Node<V>(key, value, nextPriority()));
+        return null;
+    }
+
+    /**
+     * Maps many keys to values at once. If the tree is empty and the keys
+     * are in strictly ascending order, the tree is built directly from them
+     * in O(n); otherwise each key is put in turn.
+     * @param keys The keys to map.
+     * @param values The value of each key, at the same index. Must not be null.
+     */
+    public void putAll(long[] keys, V[] values) {
+        boolean ascending = true;
+        for (int i = 1; i < keys.length && ascending; i++) {
+            ascending = keys[i - 1] < keys[i];
+        }
+        if (root != null || !ascending) {
+            for (int i = 0; i < keys.length; i++) {
+                put(keys[i], values[i]);
+            }
+            return;
+        }
+        ArrayList<Node<V>> spine = new ArrayList<Node<V>>(); // the right spine of the tree built so far
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("RankTree does not accept null values.");
+            }
+            Node<V> node = new Node<V>(keys[i], values[i], nextPriority());
+            Node<V> last = null;
+            while (!spine.isEmpty() && spine.get(spine.size() - 1).priority < node.priority) {
+                last = spine.remove(spine.size() - 1); // lower priorities go below the new node
+            }
+            node.left = last;
+            if (!spine.isEmpty()) {
+                spine.get(spine.size() - 1).right = node;
+            }
+            spine.add(node);
+        }
+        root = spine.isEmpty() ? null : spine.get(0);
+        recount(root);
+    }
+
+    /**
+     * Removes the mapping of a key.
+     * @param key The key to remove.
+     * @return The value that was mapped to the key, or null if there was none.
+     */
+    public V remove(long key) {
+        V removed = get(key);
+        if (removed != null) {
+            root = delete(root, key);
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of entries in the tree.
+     * @return The number of entries.
+     */
+    public int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Removes every entry from the tree.
+     */
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Returns the value at a rank, where rank 0 holds the smallest key.
+     * @param rank The rank of the entry.
+     * @return The value of the entry at the rank, or null if the rank is out of range.
+     */
+    public V select(int rank) {
+        Node<V> node = nodeAt(rank);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the key at a rank, where rank 0 holds the smallest key.
+     * @param rank The rank of the entry. Must be in range.
+     * @return The key of the entry at the rank.
+     */
+    public long keyAt(int rank) {
+        Node<V> node = nodeAt(rank);
+        if (node == null) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " is out of range for " + size() + " entries.");
+        }
+        return node.key;
+    }
+
+    /**
+     * Returns the rank a key has, or would have, in the tree.
+     * @param key The key to look up.
+     * @return The number of keys in the tree smaller than the key.
+     */
+    public int rankOf(long key) {
+        int rank = 0;
+        Node<V> node = root;
+        while (node != null) {
+            if (key <= node.key) {
+                node = node.left;
+            } else {
+                rank += sizeOf(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the values of a range of ranks, in ascending order of key.
+     * The range is clamped to the entries of the tree.
+     * @param from The first rank of the range, inclusive.
+     * @param to The last rank of the range, exclusive.
+     * @return The values of the entries in the range.
+     */
+    public ArrayList<V> values(int from, int to) {
+        from = Math.max(from, 0);
+        to = Math.min(to, size());
+        ArrayList<V> values = new ArrayList<V>(Math.max(to - from, 0));
+        if (from < to) {
+            collect(root, from, to, 0, values);
+        }
+        return values;
+    }
+
+    /**
+     * Returns every value of the tree, in ascending order of key.
+     * @return The values of the tree.
+     */
+    public ArrayList<V> values() {
+        return values(0, size());
+    }
+
+    /**
+     * Appends the values of the ranks of a subtree that fall in a range.
+     * @param node The root of the subtree.
+     * @param from The first rank of the range, inclusive.
+     * @param to The last rank of the range, exclusive.
+     * @param offset The rank of the smallest key of the subtree.
+     * @param values The list the values are appended to.
+     */
+    private void collect(Node<V> node, int from, int to, int offset, ArrayList<V> values) {
+        if (node == null || offset >= to || offset + node.size <= from) {
+            return;
+        }
+        collect(node.left, from, to, offset, values);
+        int rank = offset + sizeOf(node.left);
+        if (rank >= from && rank < to) {
+            values.add(node.value);
+        }
+        collect(node.right, from, to, rank + 1, values);
+    }
+
+    /**
+     * Finds the node at a rank.
+     * @param rank The rank of the node.
+     * @return The node at the rank, or null if the rank is out of range.
+     */
+    private Node<V> nodeAt(int rank) {
+        if (rank < 0 || rank >= size()) {
+            return null;
+        }
+        Node<V> node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (rank < leftSize) {
+                node = node.left;
+            } else if (rank > leftSize) {
+                rank -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Inserts a node whose key is not yet in a subtree.
+     * @param node The root of the subtree.
+     * @param leaf The node to insert.
+     * @return The new root of the subtree.
+     */
+    private Node<V> insert(Node<V> node, Node<V> leaf) {
+        if (node == null) {
+            return leaf;
+        }
+        if (leaf.key < node.key) {
+            node.left = insert(node.left, leaf);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, leaf);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Deletes the node of a key that is in a subtree.
+     * @param node The root of the subtree.
+     * @param key The key to delete.
+     * @return The new root of the subtree.
+     */
+    private Node<V> delete(Node<V> node, long key) {
+        if (key < node.key) {
+            node.left = delete(node.left, key);
+        } else if (key > node.key) {
+            node.right = delete(node.right, key);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Joins two subtrees where every key of the first is smaller than
+     * every key of the second.
+     * @param left The subtree of smaller keys.
+     * @param right The subtree of larger keys.
+     * @return The root of the joined subtree.
+     */
+    private Node<V> merge(Node<V> left, Node<V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    /**
+     * Rotates a node down to the right of its left child.
+     * @param node The node to rotate.
+     * @return The left child, which takes the node's place.
+     */
+    private Node<V> rotateRight(Node<V> node) {
+        Node<V> child = node.left;
+        node.left = child.right;
+        child.right = node;
+        update(node);
+        return child;
+    }
+
+    /**
+     * Rotates a node down to the left of its right child.
+     * @param node The node to rotate.
+     * @return The right child, which takes the node's place.
+     */
+    private Node<V> rotateLeft(Node<V> node) {
+        Node<V> child = node.right;
+        node.right = child.left;
+        child.left = node;
+        update(node);
+        return child;
+    }
+
+    /**
+     * Recounts the nodes below every node of a subtree.
+     * @param node The root of the subtree, or null.
+     */
+    private void recount(Node<V> node) {
+        if (node != null) {
+            recount(node.left);
+            recount(node.right);
+            update(node);
+        }
+    }
+
+    /**
+     * Recounts the nodes below a node from the counts of its children.
+     * @param node The node to update.
+     */
+    private void update(Node<V> node) {
+        node.size = sizeOf(node.left) + sizeOf(node.right) + 1;
+    }
+
+    /**
+     * Returns the number of nodes in a subtree.
+     * @param node The root of the subtree, or null.
+     * @return The number of nodes.
+     */
+    private static int sizeOf(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Draws the priority of a new node.
+     * @return A pseudo-random priority.
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
@@ -0,0 +1,51 @@
+package cycling;
+
+/**
+ * Computes the values derived from the ranked results of a stage of
+ * CyclingPortal.java in single linear sweeps over the ranked order.
+ */
+final class RankingEngine {
+
+    // RankingEngine methods
+    /**
+     * Computes the adjusted elapsed times of a ranked stage in one sweep and
+     * stores them in the results. A rider finishing at most one second after
+     * the rider ahead joins that rider's group and takes the time of the first
+     * rider of the group, however long the group is. Time-trials are not adjusted.
+     * @param ranked The results of the stage, from the fastest to the slowest.
+     * @param timeTrial True if the stage is a time-trial.
+     */
+    static void adjustElapsedTimes(StageResult[] ranked, boolean timeTrial) {
+        int[] adjustedElapsedTimes = new int[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            int elapsedTime = ranked[i].getIntElapsedTime();
+            adjustedElapsedTimes[i] = elapsedTime;
+            if (!timeTrial && i > 0 && elapsedTime - ranked[i - 1].getIntElapsedTime() <= 1) {
+                adjustedElapsedTimes[i] = adjustedElapsedTimes[i - 1];
+            }
+        }
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i].setIntAdjustedElapsedTime(adjustedElapsedTimes[i]);
+        }
+    }
+
+    /**
+     * Returns the IDs of the riders of a set of ranked results.
+     * @param ranked The ranked results.
+     * @return The IDs of the riders, in the same order as the results.
+     */
+    static int[] riderIDs(StageResult[] ranked) {
+        int[] riderIDs = new int[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            riderIDs[i] = ranked[i].getRiderID();
+        }
+        return riderIDs;
+    }
+
+    // constructor
+    /**
+     * RankingEngine only has static methods and is never instantiated.
+     */
+    private RankingEngine() {
+    }
+}
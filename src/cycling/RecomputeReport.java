@@ -0,0 +1,125 @@
+package cycling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Represents the outcome of recomputing every classification of
+ * CyclingPortal.java: how long each stage and race task took, and how
+ * long the whole recomputation took.
+ */
+public final class RecomputeReport {
+
+    /** Represents one task of the recomputation: bringing a stage up
+     * to date, or merging the stages of a race into its classifications.
+     */
+    public static final class Task {
+
+        // attributes
+        private final boolean race; // true for a race task, false for a stage task
+        private final int id; // the ID of the stage or race
+        private volatile long nanos; // set by the thread that ran the task
+
+        /** Gets the task's information.
+         * @return A string containing the kind of task, its ID
+         * and how long it took.
+         */
+        public String toString() {
+            return (race ? "Race ID: " : "Stage ID: ") + this.id
+            + ", Time: " + (this.nanos / 1000) + " us";
+        }
+
+        // getters
+        /** Gets whether the task merged the stages of a race.
+         * @return True for a race task, false for a stage task.
+         */
+        public boolean isRace() {
+            return race;
+        }
+
+        /** Gets the ID of the stage or race of the task.
+         * @return The unique ID of the stage or race.
+         */
+        public int getID() {
+            return id;
+        }
+
+        /** Gets how long the task took to run.
+         * @return The time the task took, in nanoseconds.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /** Records how long the task took to run.
+         * @param nanos The time the task took, in nanoseconds.
+         */
+        void setNanos(long nanos) {
+            this.nanos = nanos;
+        }
+
+        /** Constructor for Task.
+         * @param race True for a race task, false for a stage task.
+         * @param id The ID of the stage or race.
+         */
+        Task(boolean race, int id) {
+            this.race = race;
+            this.id = id;
+        }
+    }
+
+    // attributes
+    private final ArrayList<Task> tasks = new ArrayList<Task>();
+    private long nanos; // from the first task scheduled to the last task done
+
+    /** Gets the report's information.
+     * @return A string containing the total time, followed by
+     * one line per task.
+     */
+    public String toString() {
+        StringBuilder report = new StringBuilder("Recomputed " + tasks.size() + " tasks in "
+                + (this.nanos / 1000) + " us");
+        for (Task task: tasks) {
+            report.append(System.lineSeparator()).append(task);
+        }
+        return report.toString();
+    }
+
+    // getters
+    /** Gets the tasks of the recomputation, each race
+     * followed by its stages.
+     * @return An unmodifiable list of the tasks.
+     */
+    public List<Task> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    /** Gets how long the whole recomputation took.
+     * @return The time, in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /** Adds a task to the report.
+     * @param race True for a race task, false for a stage task.
+     * @param id The ID of the stage or race.
+     * @return The task, whose time is recorded once it has run.
+     */
+    Task addTask(boolean race, int id) {
+        Task task = new Task(race, id);
+        tasks.add(task);
+        return task;
+    }
+
+    /** Records how long the whole recomputation took.
+     * @param nanos The time, in nanoseconds.
+     */
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /** Constructor for RecomputeReport. Creates an empty report. */
+    RecomputeReport() {
+    }
+}
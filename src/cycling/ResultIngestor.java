@@ -0,0 +1,136 @@
+package cycling;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ResultIngestor is an asynchronous front end for registering results in a
+ * ConcurrentCyclingPortal. Timing-feed threads submit checkpoints without
+ * waiting for any lock: each submission goes on a lock-free queue, and a
+ * single applier thread drains the queue in batches. A batch is registered
+ * while holding the locks of each race once, instead of once per result,
+ * and every submission is validated exactly as by
+ * {@link CyclingPortalInterface#registerRiderResultsInStage(int, int, LocalTime...)}.
+ * <p>
+ * Submissions of one producer are applied in the order they were made.
+ * The outcome of each submission is reported through the future it
+ * returns. Callbacks attached to the future run on the applier thread once
+ * it holds no lock of the portal, so they may query or update the portal.
+ */
+public final class ResultIngestor {
+
+	/**
+	 * The checkpoints of one rider in one stage, waiting to be registered.
+	 */
+	static final class Submission {
+		final int stageId; // The ID of the stage
+		final int riderId; // The ID of the rider
+		final LocalTime[] checkpoints; // The times of the rider at the start, each segment and the finish
+		final CompletableFuture<Void> future = new CompletableFuture<Void>(); // Completed once the result is registered or rejected
+
+		/**
+		 * Constructor for Submission.
+		 * @param stageId The ID of the stage.
+		 * @param riderId The ID of the rider.
+		 * @param checkpoints The checkpoints of the rider in the stage.
+		 */
+		private Submission(int stageId, int riderId, LocalTime[] checkpoints) {
+			this.stageId = stageId;
+			this.riderId = riderId;
+			this.checkpoints = checkpoints;
+		}
+	}
+
+	private static final int MAX_BATCH_SIZE = 1024; // The most submissions registered under one hold of the locks
+
+	private final ConcurrentCyclingPortal portal; // The portal the results are registered in
+	private final MpscQueue<Submission> queue = new MpscQueue<Submission>(); // Submissions not yet drained by the applier
+	private final Thread applier; // The only thread that drains the queue and registers results
+	private final AtomicInteger pending = new AtomicInteger(); // Submissions accepted but not yet registered or rejected
+	private volatile boolean waiting; // True while the applier is about to park or parked on an empty queue
+	private volatile boolean closed; // True once no more submissions are accepted
+
+	/**
+	 * Submits the checkpoints of a rider in a stage for registration.
+	 * Returns at once; the result is registered later by the applier thread.
+	 * @param stageId The ID of the stage the result refers to.
+	 * @param riderId The ID of the rider.
+	 * @param checkpoints An array of times at which the rider reached each of
+	 * the segments of the stage, including the start time and the finish line.
+	 * @return A future completed once the result is registered, or completed
+	 * exceptionally with the exception registerRiderResultsInStage would have
+	 * thrown.
+	 * @throws IllegalStateException If the ingestor has been closed.
+	 * @throws NullPointerException If the array of checkpoints is null.
+	 */
+	public CompletableFuture<Void> submit(int stageId, int riderId, LocalTime... checkpoints) {
+		Submission submission = new Submission(stageId, riderId, checkpoints.clone()); // nothing is counted if this throws
+		pending.incrementAndGet(); // counted before checking closed, so that close() waits for it
+		if (closed) {
+			pending.decrementAndGet();
+			throw new IllegalStateException("The result ingestor has been closed.");
+		}
+		queue.offer(submission);
+		if (waiting) {
+			LockSupport.unpark(applier);
+		}
+		return submission.future;
+	}
+
+	/**
+	 * Stops accepting submissions, waits for the applier to register every
+	 * submission already made, and stops the applier.
+	 * @throws InterruptedException If the calling thread is interrupted while waiting.
+	 */
+	public void close() throws InterruptedException {
+		closed = true;
+		LockSupport.unpark(applier);
+		applier.join();
+	}
+
+	/**
+	 * Drains the queue in batches until the ingestor is closed and every
+	 * accepted submission is registered, parking while there is nothing to drain.
+	 */
+	private void apply() {
+		ArrayList<Submission> batch = new ArrayList<Submission>(MAX_BATCH_SIZE);
+		while (true) {
+			Submission submission;
+			while (batch.size() < MAX_BATCH_SIZE && (submission = queue.poll()) != null) {
+				batch.add(submission);
+			}
+			if (!batch.isEmpty()) {
+				portal.registerRiderResults(batch);
+				pending.addAndGet(-batch.size());
+				batch.clear();
+				continue;
+			}
+			if (closed) {
+				if (pending.get() == 0) {
+					return;
+				}
+				Thread.yield(); // a submission accepted just before closing is still being linked in
+				continue;
+			}
+			waiting = true;
+			if (queue.isEmpty() && !closed) {
+				LockSupport.park(this); // a producer that sees waiting unparks the applier after its offer
+			}
+			waiting = false;
+		}
+	}
+
+	/**
+	 * Constructor for ResultIngestor. Starts the applier thread.
+	 * @param portal The portal to register the results in.
+	 */
+	public ResultIngestor(ConcurrentCyclingPortal portal) {
+		this.portal = portal;
+		applier = new Thread(this::apply, "result-ingestor");
+		applier.setDaemon(true);
+		applier.start();
+	}
+}
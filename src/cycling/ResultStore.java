@@ -0,0 +1,303 @@
+package cycling;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Columnar storage for the results of CyclingPortal.java. Every result is
+ * a row, and each of its values is kept in a parallel primitive array, so
+ * scans over one value of many results walk contiguous memory. The
+ * checkpoints of all rows share one row-major matrix whose width is that
+ * of the longest row stored so far.
+ * <p>
+ * Removing a row moves the last row into its place. StageResult objects
+ * are handles onto rows, and the store updates the row of a handle when
+ * it moves, so handles held by indexes stay valid.
+ */
+final class ResultStore implements Serializable {
+
+    // attributes
+    /** The number of rows allocated when the store is created. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The number of rows in the store. */
+    private int size;
+    /** The ID of the stage of each row. */
+    private int[] stageIDs;
+    /** The ID of the rider of each row. */
+    private int[] riderIDs;
+    /** The ID of the race of each row. */
+    private int[] raceIDs;
+    /** The elapsed time of each row, in seconds. */
+    private int[] elapsedTimes;
+    /** The adjusted elapsed time of each row, in seconds, or -1 if it has not been computed. */
+    private int[] adjustedElapsedTimes;
+    /** The points of each row. */
+    private int[] points;
+    /** The mountain points of each row. */
+    private int[] mountainPoints;
+    /** The number of checkpoints of each row. */
+    private int[] checkpointCounts;
+    /** The checkpoints of every row in seconds of the day, {@code width} values per row. */
+    private int[] checkpoints;
+    /** The number of checkpoint columns of the matrix. */
+    private int width;
+    /** The handle of each row. */
+    private StageResult[] results;
+
+    // ResultStore methods
+    /**
+     * Appends a row to the store.
+     * @param stageID The ID of the stage of the result.
+     * @param riderID The ID of the rider of the result.
+     * @param raceID The ID of the race of the result.
+     * @param elapsedTime The elapsed time of the result, in seconds.
+     * @param checkpointTimes The checkpoints of the result in seconds of the day.
+     * @return The handle of the new row.
+     */
+    public StageResult add(int stageID, int riderID, int raceID, int elapsedTime, int[] checkpointTimes) {
+        if (checkpointTimes.length > width) {
+            widen(checkpointTimes.length);
+        }
+        if (size == results.length) {
+            grow(size << 1);
+        }
+        int row = size++;
+        stageIDs[row] = stageID;
+        riderIDs[row] = riderID;
+        raceIDs[row] = raceID;
+        elapsedTimes[row] = elapsedTime;
+        adjustedElapsedTimes[row] = -1;
+        points[row] = 0;
+        mountainPoints[row] = 0;
+        checkpointCounts[row] = checkpointTimes.length;
+        System.arraycopy(checkpointTimes, 0, checkpoints, row * width, checkpointTimes.length);
+        results[row] = new StageResult(this, row);
+        return results[row];
+    }
+
+    /**
+     * Appends a copy of a result held by another store, e.g. one read back
+     * from a saved portal.
+     * @param result The result to be copied.
+     * @return The handle of the new row.
+     */
+    public StageResult copyOf(StageResult result) {
+        int[] checkpointTimes = new int[result.getNumberOfCheckpoints()];
+        for (int i = 0; i < checkpointTimes.length; i++) {
+            checkpointTimes[i] = result.getIntCheckpoint(i);
+        }
+        StageResult copy = add(result.getStageID(), result.getRiderID(), result.getRaceID(),
+                result.getIntElapsedTime(), checkpointTimes);
+        int row = copy.getRow();
+        adjustedElapsedTimes[row] = result.isAdjusted() ? result.getIntAdjustedElapsedTime() : -1;
+        points[row] = result.getPoints();
+        mountainPoints[row] = result.getMountainPoints();
+        return copy;
+    }
+
+    /**
+     * Removes the row of a result, moving the last row into its place.
+     * The handle of the removed row must not be used afterwards.
+     * @param result The handle of the row to be removed.
+     */
+    public void remove(StageResult result) {
+        int row = result.getRow();
+        int last = --size;
+        if (row != last) {
+            stageIDs[row] = stageIDs[last];
+            riderIDs[row] = riderIDs[last];
+            raceIDs[row] = raceIDs[last];
+            elapsedTimes[row] = elapsedTimes[last];
+            adjustedElapsedTimes[row] = adjustedElapsedTimes[last];
+            points[row] = points[last];
+            mountainPoints[row] = mountainPoints[last];
+            checkpointCounts[row] = checkpointCounts[last];
+            System.arraycopy(checkpoints, last * width, checkpoints, row * width, width);
+            results[row] = results[last];
+            results[row].setRow(row);
+        }
+        results[last] = null;
+    }
+
+    /**
+     * Removes every row from the store.
+     */
+    public void clear() {
+        Arrays.fill(results, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of rows in the store.
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the handle of a row.
+     * @param row The row.
+     * @return The handle of the row.
+     */
+    public StageResult getResult(int row) {
+        return results[row];
+    }
+
+    /**
+     * Returns the ID of the stage of a row.
+     * @param row The row.
+     * @return The ID of the stage.
+     */
+    public int getStageID(int row) {
+        return stageIDs[row];
+    }
+
+    /**
+     * Returns the ID of the rider of a row.
+     * @param row The row.
+     * @return The ID of the rider.
+     */
+    public int getRiderID(int row) {
+        return riderIDs[row];
+    }
+
+    /**
+     * Returns the ID of the race of a row.
+     * @param row The row.
+     * @return The ID of the race.
+     */
+    public int getRaceID(int row) {
+        return raceIDs[row];
+    }
+
+    /**
+     * Returns the elapsed time of a row.
+     * @param row The row.
+     * @return The elapsed time in seconds.
+     */
+    public int getElapsedTime(int row) {
+        return elapsedTimes[row];
+    }
+
+    /**
+     * Returns the adjusted elapsed time of a row.
+     * @param row The row.
+     * @return The adjusted elapsed time in seconds, or -1 if it has not been computed.
+     */
+    public int getAdjustedElapsedTime(int row) {
+        return adjustedElapsedTimes[row];
+    }
+
+    /**
+     * Sets the adjusted elapsed time of a row.
+     * @param row The row.
+     * @param adjustedElapsedTime The adjusted elapsed time in seconds.
+     */
+    public void setAdjustedElapsedTime(int row, int adjustedElapsedTime) {
+        adjustedElapsedTimes[row] = adjustedElapsedTime;
+    }
+
+    /**
+     * Returns the points of a row.
+     * @param row The row.
+     * @return The points.
+     */
+    public int getPoints(int row) {
+        return points[row];
+    }
+
+    /**
+     * Sets the points of a row.
+     * @param row The row.
+     * @param rowPoints The points.
+     */
+    public void setPoints(int row, int rowPoints) {
+        points[row] = rowPoints;
+    }
+
+    /**
+     * Returns the mountain points of a row.
+     * @param row The row.
+     * @return The mountain points.
+     */
+    public int getMountainPoints(int row) {
+        return mountainPoints[row];
+    }
+
+    /**
+     * Sets the mountain points of a row.
+     * @param row The row.
+     * @param rowMountainPoints The mountain points.
+     */
+    public void setMountainPoints(int row, int rowMountainPoints) {
+        mountainPoints[row] = rowMountainPoints;
+    }
+
+    /**
+     * Returns the number of checkpoints of a row.
+     * @param row The row.
+     * @return The number of checkpoints, including the start and finish times.
+     */
+    public int getNumberOfCheckpoints(int row) {
+        return checkpointCounts[row];
+    }
+
+    /**
+     * Returns one checkpoint of a row.
+     * @param row The row.
+     * @param index The index of the checkpoint, where 0 is the start time.
+     * @return The checkpoint in seconds of the day.
+     */
+    public int getCheckpoint(int row, int index) {
+        return checkpoints[row * width + index];
+    }
+
+    /**
+     * Reallocates every column with a new number of rows.
+     * @param capacity The new number of rows.
+     */
+    private void grow(int capacity) {
+        stageIDs = Arrays.copyOf(stageIDs, capacity);
+        riderIDs = Arrays.copyOf(riderIDs, capacity);
+        raceIDs = Arrays.copyOf(raceIDs, capacity);
+        elapsedTimes = Arrays.copyOf(elapsedTimes, capacity);
+        adjustedElapsedTimes = Arrays.copyOf(adjustedElapsedTimes, capacity);
+        points = Arrays.copyOf(points, capacity);
+        mountainPoints = Arrays.copyOf(mountainPoints, capacity);
+        checkpointCounts = Arrays.copyOf(checkpointCounts, capacity);
+        checkpoints = Arrays.copyOf(checkpoints, capacity * width);
+        results = Arrays.copyOf(results, capacity);
+    }
+
+    /**
+     * Rebuilds the checkpoint matrix with more columns per row.
+     * @param newWidth The new number of columns.
+     */
+    private void widen(int newWidth) {
+        int[] widened = new int[results.length * newWidth];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(checkpoints, row * width, widened, row * newWidth, checkpointCounts[row]);
+        }
+        checkpoints = widened;
+        width = newWidth;
+    }
+
+    // constructor
+    /**
+     * Constructor for ResultStore. Creates an empty store.
+     */
+    ResultStore() {
+        stageIDs = new int[INITIAL_CAPACITY];
+        riderIDs = new int[INITIAL_CAPACITY];
+        raceIDs = new int[INITIAL_CAPACITY];
+        elapsedTimes = new int[INITIAL_CAPACITY];
+        adjustedElapsedTimes = new int[INITIAL_CAPACITY];
+        points = new int[INITIAL_CAPACITY];
+        mountainPoints = new int[INITIAL_CAPACITY];
+        checkpointCounts = new int[INITIAL_CAPACITY];
+        checkpoints = new int[0];
+        results = new StageResult[INITIAL_CAPACITY];
+    }
+}
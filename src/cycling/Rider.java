@@ -15,8 +15,7 @@ public class Rider implements Serializable {
     private int yearOfBirth;
     private int teamID;
     private ArrayList<StageResult> stageResults = new ArrayList<StageResult>();
-    
-    static ArrayList<Integer> riderIDs = new ArrayList<Integer>();
+    private transient ArrayList<Integer> liveStageIDs; // stages the rider is racing, with checkpoints recorded one at a time
     
     // Rider methods
     /** 
@@ -27,23 +26,6 @@ public class Rider implements Serializable {
         return riderID;
     }
 
-    /** 
-     * Removes a riderID of a rider from the riderIDs
-     * arrayList
-     * @param riderID The riderID of a rider
-     */
-    public static void removeRiderID (Integer riderID) {
-        riderIDs.remove(riderID);
-    }
-
-
-    /**
-     * Deletes all of the data related to a rider
-     */
-    public static void clearAll() {
-        riderIDs.clear();   
-    }
-
     // Team methods
     /** 
      * Gets the team's ID.
@@ -109,10 +91,11 @@ public class Rider implements Serializable {
     }
 
     /** 
-     * Adds a stage result for a rider
+     * Adds a stage result for a rider. Synchronized, as results of the
+     * rider in different races may be registered at the same time.
      * @param stageResult The stage result of a rider
      */
-    public void addStageResult(StageResult stageResult) {
+    public synchronized void addStageResult(StageResult stageResult) {
         if (stageResult.getRiderID() != this.riderID) {
             return;
         } else {
@@ -121,39 +104,68 @@ public class Rider implements Serializable {
     }
 
     /** 
-     * Removes a stage result for a rider
+     * Removes a stage result for a rider. Synchronized, as results of the
+     * rider in different races may be deleted at the same time.
      * @param stageResult The stage result of a rider
      */
-    public void removeStageResult(StageResult stageResult) {
+    public synchronized void removeStageResult(StageResult stageResult) {
         stageResults.remove(stageResult);
     }   
+
+    // live stage methods
+    /** 
+     * Records that the rider has checkpoints recorded one at a time in a
+     * stage they have not finished yet. Synchronized, as the rider may be
+     * racing stages of different races at the same time.
+     * @param stageID The unique ID of the stage
+     */
+    public synchronized void addLiveStage(int stageID) {
+        if (liveStageIDs == null) {
+            liveStageIDs = new ArrayList<Integer>();
+        }
+        liveStageIDs.add(stageID);
+    }
+
+    /** 
+     * Records that the rider has finished a stage, or that their
+     * checkpoints in it were deleted.
+     * @param stageID The unique ID of the stage
+     */
+    public synchronized void removeLiveStage(int stageID) {
+        if (liveStageIDs != null) {
+            liveStageIDs.remove(Integer.valueOf(stageID));
+        }
+    }
+
+    /** 
+     * Gets the stages the rider is racing.
+     * @return The IDs of the stages with checkpoints of the rider recorded
+     * one at a time, which the rider has not finished yet
+     */
+    public synchronized int[] getLiveStageIDs() {
+        if (liveStageIDs == null) {
+            return new int[0];
+        }
+        int[] stageIDs = new int[liveStageIDs.size()];
+        for (int i = 0; i < stageIDs.length; i++) {
+            stageIDs[i] = liveStageIDs.get(i);
+        }
+        return stageIDs;
+    }
     
     // constructor
     /**
      * Constructor method for Rider.
+     * @param riderID The unique ID of the rider, allocated by the portal.
      * @param teamID The ID of the rider's team.
      * @param name The name of the rider.
      * @param yearOfBirth The rider's year of birth.
      */
-    public Rider(int teamID, String name, int yearOfBirth) {
+    public Rider(int riderID, int teamID, String name, int yearOfBirth) {
+        this.riderID = riderID;
         this.teamID = teamID;
         this.name = name;
         this.yearOfBirth = yearOfBirth;
-        
-        if (riderIDs.size() == 0) { // Generating the ID
-            this.riderID = 1;
-            riderIDs.add(this.riderID);
-        } else {
-            Integer max = riderIDs.get(0);
-            for (int i = 0; i < riderIDs.size(); i++) {
-                if (riderIDs.get(i) > max) {
-                    max = riderIDs.get(i);                    
-                }
-            }
-            this.riderID = max + 1;
-            riderIDs.add(this.riderID);
-        }
-        
     }
 
 }
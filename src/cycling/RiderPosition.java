@@ -0,0 +1,80 @@
+package cycling;
+
+import java.time.Duration;
+
+/** Represents the position of a rider in a classification of CyclingPortal.java,
+ * e.g. "14th, +2:31". Times are durations rather than times of day, as the
+ * time of a rider over a whole race can exceed 24 hours.
+ */
+public final class RiderPosition {
+
+    // attributes
+    private final int riderID;
+    private final int rank; // 1 for the leader
+    private final Duration time;
+    private final Duration gap; // behind the leader, zero for the leader
+
+    /** Gets the position's information.
+     * @return A string containing the rider's ID,
+     * the rank, the time and the gap to the leader.
+     */
+    public String toString() {
+        return "Rider ID: " + this.riderID
+        + ", Rank: " + this.rank
+        + ", Time: " + format(this.time)
+        + ", Gap: +" + format(this.gap);
+    }
+
+    // getters
+    /** Gets the rider's ID.
+     * @return The unique ID of the rider.
+     */
+    public int getRiderID() {
+        return riderID;
+    }
+
+    /** Gets the rank of the rider.
+     * @return The rank of the rider, where 1 is the leader.
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /** Gets the time of the rider in the classification.
+     * @return The time of the rider, e.g. their elapsed time, or for a
+     * checkpoint the time of day they passed it, measured from midnight.
+     */
+    public Duration getTime() {
+        return time;
+    }
+
+    /** Gets the gap between the rider and the leader.
+     * @return The time behind the leader, which is
+     * zero for the leader.
+     */
+    public Duration getGap() {
+        return gap;
+    }
+
+    /** Constructor for RiderPosition.
+     * @param riderID The ID of the rider.
+     * @param rank The rank of the rider, where 1 is the leader.
+     * @param time The time of the rider, in seconds.
+     * @param leaderTime The time of the leader, in seconds.
+     */
+    RiderPosition(int riderID, int rank, int time, int leaderTime) {
+        this.riderID = riderID;
+        this.rank = rank;
+        this.time = Duration.ofSeconds(time);
+        this.gap = Duration.ofSeconds(time - leaderTime);
+    }
+
+    /** Formats a duration as hours, minutes and seconds, e.g. "123:04:05".
+     * @param duration The duration, in whole seconds.
+     * @return The duration, with as many digits of hours as it needs.
+     */
+    private static String format(Duration duration) {
+        long seconds = duration.getSeconds();
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
@@ -0,0 +1,102 @@
+package cycling;
+
+import java.io.Serializable;
+
+/**
+ * Awards points and mountain points to the results of a stage of
+ * CyclingPortal.java.
+ * The tables of a ScoringScheme are copied once, indexed by the ordinal
+ * of their stage or segment type, so scoring a stage is a single pass over
+ * its ranked results that reads the table directly and allocates nothing.
+ */
+final class ScoringEngine implements Serializable {
+
+    // attributes
+    /** The points table of each stage type, indexed by ordinal. */
+    private final int[][] stagePoints;
+    /** The points table of each segment type, indexed by ordinal. */
+    private final int[][] segmentPoints;
+
+    // ScoringEngine methods
+    /**
+     * Sets the points and mountain points of every result of a stage.
+     * Points are awarded by finish order and at every intermediate sprint,
+     * and mountain points at every categorised climb, by the order in which
+     * the riders passed that segment. The totals of each rider are summed in
+     * local arrays and written to the results once at the end.
+     * @param stageType The type of the stage.
+     * @param segmentTypes The types of the segments of the stage, in the order
+     * of their checkpoints.
+     * @param ranked The results of the stage, from the fastest to the slowest.
+     */
+    public void scoreStage(StageType stageType, SegmentType[] segmentTypes, StageResult[] ranked) {
+        int[] points = new int[ranked.length];
+        int[] mountainPoints = new int[ranked.length];
+        int[] table = stagePoints[stageType.ordinal()];
+        for (int i = 0; i < Math.min(table.length, ranked.length); i++) {
+            points[i] = table[i];
+        }
+        long[] leaders = new long[ranked.length];
+        for (int segment = 0; segment < segmentTypes.length; segment++) {
+            table = segmentPoints[segmentTypes[segment].ordinal()];
+            int scored = selectLeaders(ranked, segment + 1, leaders, Math.min(table.length, ranked.length));
+            int[] totals = segmentTypes[segment].isClimb() ? mountainPoints : points;
+            for (int i = 0; i < scored; i++) {
+                totals[(int) leaders[i]] += table[i];
+            }
+        }
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i].setPoints(points[i]);
+            ranked[i].setMountainPoints(mountainPoints[i]);
+        }
+    }
+
+    /**
+     * Finds the first riders to pass a checkpoint. Only the m leaders are
+     * kept, in a sorted buffer, so one scan of the checkpoint column costs
+     * O(n * m) at worst for the short tables in use, and close to O(n) when
+     * riders arrive in roughly their finish order.
+     * @param ranked The results of the stage, from the fastest to the slowest.
+     * @param checkpoint The index of the checkpoint to order the riders by.
+     * @param leaders The buffer the leaders are written to, as the checkpoint
+     * time in the high 32 bits and the position in ranked in the low 32 bits.
+     * Riders passing at the same time keep their finish order.
+     * @param m The number of leaders to find, at most the number of results.
+     * @return The number of leaders found.
+     */
+    private static int selectLeaders(StageResult[] ranked, int checkpoint, long[] leaders, int m) {
+        if (m == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < ranked.length; i++) {
+            long key = ((long) ranked[i].getIntCheckpoint(checkpoint) << 32) | i;
+            if (count == m && key >= leaders[m - 1]) {
+                continue; // slower than every current leader
+            }
+            int j = count < m ? count++ : m - 1;
+            while (j > 0 && leaders[j - 1] > key) {
+                leaders[j] = leaders[j - 1];
+                j--;
+            }
+            leaders[j] = key;
+        }
+        return count;
+    }
+
+    // constructor
+    /**
+     * Constructor for ScoringEngine. Copies the tables of a scheme.
+     * @param scheme The scoring scheme to award points with.
+     */
+    ScoringEngine(ScoringScheme scheme) {
+        stagePoints = new int[StageType.values().length][];
+        for (StageType stageType: StageType.values()) {
+            stagePoints[stageType.ordinal()] = scheme.getStagePoints(stageType).clone();
+        }
+        segmentPoints = new int[SegmentType.values().length][];
+        for (SegmentType segmentType: SegmentType.values()) {
+            segmentPoints[segmentType.ordinal()] = scheme.getSegmentPoints(segmentType).clone();
+        }
+    }
+}
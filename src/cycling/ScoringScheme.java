@@ -0,0 +1,41 @@
+package cycling;
+
+/**
+ * A scoring scheme gives the points tables used to award points and
+ * mountain points in a CyclingPortal. The default methods give the
+ * standard tables attached to {@link StageType} and {@link SegmentType};
+ * alternative schemes override the tables they change and are loaded
+ * with {@link CyclingPortal#setScoringScheme(ScoringScheme)}.
+ */
+public interface ScoringScheme {
+
+	/**
+	 * The standard scoring scheme.
+	 */
+	ScoringScheme STANDARD = new ScoringScheme() {
+	};
+
+	/**
+	 * Get the points awarded by finishing position in a type of stage.
+	 * 
+	 * @param stageType The type of the stage.
+	 * @return The points awarded by finishing position, from the winner down.
+	 *         Positions beyond the table are awarded no points.
+	 */
+	default int[] getStagePoints(StageType stageType) {
+		return stageType.getPoints();
+	}
+
+	/**
+	 * Get the points awarded by position at a type of segment. Intermediate
+	 * sprints award points and categorised climbs award mountain points.
+	 * 
+	 * @param segmentType The type of the segment.
+	 * @return The points awarded by position at the segment, from the first
+	 *         rider down. Positions beyond the table are awarded no points.
+	 */
+	default int[] getSegmentPoints(SegmentType segmentType) {
+		return segmentType.getPoints();
+	}
+
+}
@@ -1,7 +1,6 @@
 package cycling;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 
 /**
  * Represents a Segment in CyclingPortal.java
@@ -22,9 +21,6 @@ public class Segment implements Serializable {
     private Double averageGradient;
     /** The length of the segment. */
     private Double length;
-    
-    /** A static ArrayList containing all segmentIDs in the system. */
-    static ArrayList<Integer> segmentIDs = new ArrayList<Integer>();
 
     // Segment methods
     /**
@@ -67,14 +63,6 @@ public class Segment implements Serializable {
         return location;
     }
 
-    /**
-	* Removes the specified segmentID from the segmentIDs arrayList.
-	 * @param segmentID The ID to be removed.
-	 */
-    public static void removeSegmentID(Integer segmentID) {
-        segmentIDs.remove(segmentID);
-    }
-
     /**
     * Returns the type of the segment.
 	* @return The segment type
@@ -83,13 +71,6 @@ public class Segment implements Serializable {
         return this.type;
     }
 
-    /**
-    * Deletes all segment IDs in the system.
-    */
-    public static void clearAll() {
-        segmentIDs.clear();
-    }
-    
     // Stage methods
     /**
 	 * Returns the ID of the stage of which the segment belongs to.
@@ -107,37 +88,27 @@ public class Segment implements Serializable {
 	 * created. It will not return anything, as a constructor 
 	 * should, but it will take in necessary parameters 
 	 * to instantiate the Segment object.
+     * @param segmentID The unique ID of the segment, allocated by the portal
      * @param stageID The stageID of the stage that you want 
      *                to add the segment to
      * @param location The location of the segment
 	 */
-    public Segment(int stageID, double location) {
+    public Segment(int segmentID, int stageID, double location) {
+        this.segmentID = segmentID;
         this.stageID = stageID;
         this.location = location;
         this.type = SegmentType.SPRINT;
-        if (segmentIDs.size() == 0){
-            this.segmentID = 1;
-            segmentIDs.add(this.segmentID);
-        } else {
-            Integer max = segmentIDs.get(0);
-            for (int i = 0; i < segmentIDs.size(); i++){
-                if (segmentIDs.get(i) > max) {
-                    max = segmentIDs.get(i);                    
-                }
-            }
-            this.segmentID = max + 1;
-            segmentIDs.add(this.segmentID);
-        }
     }
 
     /**
 	* This method is also a constructor, but overloads 
 	* the original constructor by allowing it to take in 
 	* more parameters (stageID, location, type, averageGradient,
-	* length). This constructor takes in stageID and location just
+	* length). This constructor takes in segmentID, stageID and location just
 	* like the original constructor but has been overloaded so that
 	* it can also take in the segment type, the averageGradient and
 	* the length of the segment.
+    * @param segmentID The unique ID of the segment, allocated by the portal
     * @param stageID The stageID of the stage that you want 
     *                to add the segment to
     * @param location The location of the segment
@@ -145,24 +116,12 @@ public class Segment implements Serializable {
     * @param averageGradient The average gradient of the segment
     * @param length The length of the segment
 	*/
-    public Segment(int stageID, Double location, SegmentType type, Double averageGradient, Double length) {
+    public Segment(int segmentID, int stageID, Double location, SegmentType type, Double averageGradient, Double length) {
+        this.segmentID = segmentID;
         this.stageID = stageID;
         this.location = location;
         this.type = type;
         this.averageGradient = averageGradient;
         this.length = length;
-        if (segmentIDs.size() == 0) { // Generating the ID
-            this.segmentID = 1;
-            segmentIDs.add(this.segmentID);
-        } else {
-            Integer max = segmentIDs.get(0);
-            for (int i = 0; i < segmentIDs.size(); i++) {
-                if (segmentIDs.get(i) > max) {
-                    max = segmentIDs.get(i);                    
-                }
-            }
-            this.segmentID = max + 1;
-            segmentIDs.add(this.segmentID);
-        }
     }
 }
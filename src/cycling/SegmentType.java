@@ -12,37 +12,70 @@ public enum SegmentType {
 	/**
 	 * An intermediate sprint.
 	 */
-	SPRINT,
+	SPRINT(20, 17, 15, 13, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1),
 
 	/**
 	 * A categorised 4 climb. The easiest categorised climbs of all, under 2km long
 	 * with an average grade of around 5% or 2-3% up to 5km long.
 	 */
-	C4,
+	C4(1),
 
 	/**
 	 * A categorised 3 climb. This could be a climb as short as 1km with a steep
 	 * gradient of about 10% or a mellower climb up to 10km long with up to a 5%
 	 * gradient.
 	 */
-	C3,
+	C3(2, 1),
 
 	/**
 	 * A categorised 2 climb. Category 2 could be a short climb, for example 5km at
 	 * 8 percent, or as long as 15km at 4. percent
 	 */
-	C2,
+	C2(5, 3, 2, 1),
 
 	/**
 	 * A categorised 1 climb. Still a very significant climb, it could be a big
 	 * mountain climb with a lesser gradient or a shorter climb with a steep pitch,
 	 * for example 8km at 8% through to 20km at 5%.
 	 */
-	C1,
+	C1(10, 8, 6, 4, 2, 1),
 
 	/**
 	 * From the French term "Hors Categorie" (HC) meaning beyond categorisation. The
 	 * toughest of the tough. The longest or steepest climbs, often both combined.
 	 */
-	HC;
+	HC(20, 15, 12, 10, 8, 6, 4, 2);
+
+	/**
+	 * The points awarded by position at the segment, from the first rider down.
+	 */
+	private final int[] points;
+
+	/**
+	 * @param points The points awarded by position at the segment.
+	 */
+	SegmentType(int... points) {
+		this.points = points;
+	}
+
+	/**
+	 * Get the standard points table of this segment type. Intermediate sprints
+	 * award points towards the points classification, and categorised climbs
+	 * award mountain points.
+	 * 
+	 * @return The points awarded by position at the segment, from the first
+	 *         rider down. Positions beyond the table are awarded no points.
+	 */
+	public int[] getPoints() {
+		return points.clone();
+	}
+
+	/**
+	 * Check whether this segment type is a categorised climb.
+	 * 
+	 * @return True for categorised climbs, false for intermediate sprints.
+	 */
+	public boolean isClimb() {
+		return this != SPRINT;
+	}
 }
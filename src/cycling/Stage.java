@@ -29,9 +29,6 @@ public class Stage implements Serializable {
     private int raceID;
     /** An ArrayList containing all segments of the stage. */
     private ArrayList<Segment> segments = new ArrayList<Segment>();
-    
-    /** A static ArrayList containing all stageIDs in the system. */
-    static ArrayList<Integer> stageIDs = new ArrayList<Integer>(); 
 
 
     // Stage methods
@@ -83,26 +80,6 @@ public class Stage implements Serializable {
         return stageState;
     }
 
-    /**
-	 * Removes the specified stageID from the stageIDs arrayList.
-	 * @param stageID The ID to be removed.
-	 */
-    public static void removeStageID(Integer stageID) {
-        stageIDs.remove(stageID);
-    }
-
-    /**
-	 * Returns an array of stageIDs.
-	 * @return An int array of IDs for all of the existing stage.
-	 */
-    public static int[] getStageIDs() {
-        int[] arrayStageIDs = new int[stageIDs.size()];
-        for (int i = 0; i < arrayStageIDs.length; i++) {
-            arrayStageIDs[i] = stageIDs.get(i).intValue();
-        }
-        return arrayStageIDs;
-    }
-
     /**
 	 * Changes the state of the stage.
 	 * @param newState The new state of the stage.
@@ -111,13 +88,6 @@ public class Stage implements Serializable {
         stageState = newState;
     } 
 
-    /**
-    * Deletes all stage IDs in the system.
-    */
-    public static void clearAll() {
-        stageIDs.clear();
-    }
-
     // Race methods 
     /**
 	 * Returns the ID of the race of which the stage belongs to.
@@ -129,11 +99,16 @@ public class Stage implements Serializable {
 
     // Segment methods
     /**
-	 * Adds a segment to the stage.
+	 * Adds a segment to the stage, keeping the segments ordered by location,
+	 * which is the order riders reach them and their checkpoints are given in.
 	 * @param segment The segment to be added.
 	 */
     public void addSegment(Segment segment) {
-        segments.add(segment);
+        int index = segments.size();
+        while (index > 0 && segments.get(index - 1).getLocation() > segment.getLocation()) {
+            index--; // segments at the same location stay in the order they were added
+        }
+        segments.add(index, segment);
     }
     
     /**
@@ -190,6 +165,7 @@ public class Stage implements Serializable {
 	 * created. It will not return anything, as a constructor 
 	 * should, but it will take in necessary parameters
 	 * to instantiate the Stage object.
+     * @param stageID The unique ID of the stage, allocated by the portal
      * @param raceID The raceID that you want to add the stage to
      * @param name The name of the stage
      * @param description The description of the stage
@@ -197,7 +173,8 @@ public class Stage implements Serializable {
      * @param startTime The starting time of the stage
      * @param type The stage type of the stage
 	 */
-    public Stage(int raceID, String name, String description, double length, LocalDateTime startTime, StageType type) {
+    public Stage(int stageID, int raceID, String name, String description, double length, LocalDateTime startTime, StageType type) {
+        this.stageID = stageID;
         this.name = name;
         this.description = description;
         this.length = length;
@@ -205,19 +182,5 @@ public class Stage implements Serializable {
         this.type = type;
         this.raceID = raceID;
         this.stageState = StageState.UNDER_DEVELOPMENT;
-
-        if (stageIDs.size() == 0) { // Generating the ID
-            this.stageID = 1;
-            stageIDs.add(this.stageID);
-        } else {
-            Integer max = stageIDs.get(0);
-            for (int i = 0; i < stageIDs.size(); i++) {
-                if (stageIDs.get(i) > max) {
-                    max = stageIDs.get(i);                    
-                }
-            }
-            this.stageID = max + 1;
-            stageIDs.add(this.stageID);
-        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package cycling;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Keeps the results of one stage of CyclingPortal.java ranked by elapsed
+ * time as they are registered and deleted, so that rank queries read the
+ * maintained order instead of sorting the stage again. Riders with the
+ * same elapsed time are ranked by rider ID.
+ */
+final class StageClassification implements Serializable {
+
+    // attributes
+    /** The results of the stage, keyed by elapsed time and then rider ID. */
+    private final RankTree<StageResult> results = new RankTree<StageResult>();
+    /** True while the adjusted elapsed times of the stage match its results. */
+    private boolean adjusted = true;
+    /** True while the points of the stage match its results and segments. */
+    private boolean scored = true;
+
+    // StageClassification methods
+    /**
+     * Adds a result to the classification in O(log n).
+     * @param result The result to be added.
+     */
+    public void add(StageResult result) {
+        results.put(keyOf(result), result);
+        adjusted = false;
+        scored = false;
+    }
+
+    /**
+     * Adds many results to the classification at once. Into an empty stage
+     * they are sorted once and the ranking is built in a single pass.
+     * @param added The results to be added.
+     */
+    public void addAll(StageResult[] added) {
+        if (added.length == 0) {
+            return;
+        }
+        long[] keys = new long[added.length];
+        IntObjectMap<StageResult> byRider = new IntObjectMap<StageResult>();
+        for (int i = 0; i < added.length; i++) {
+            keys[i] = keyOf(added[i]);
+            byRider.put(added[i].getRiderID(), added[i]);
+        }
+        Arrays.sort(keys);
+        StageResult[] sorted = new StageResult[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = byRider.get((int) keys[i]); // the low 32 bits of a key are the rider ID
+        }
+        results.putAll(keys, sorted);
+        adjusted = false;
+        scored = false;
+    }
+
+    /**
+     * Removes a result from the classification in O(log n).
+     * @param result The result to be removed.
+     */
+    public void remove(StageResult result) {
+        results.remove(keyOf(result));
+        adjusted = false;
+        scored = false;
+    }
+
+    /**
+     * Returns the number of results in the stage.
+     * @return The number of results.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Returns the result at a position of the stage.
+     * @param rank The position, where 0 is the fastest rider.
+     * @return The result at the position, or null if there is none.
+     */
+    public StageResult getResult(int rank) {
+        return results.select(rank);
+    }
+
+    /**
+     * Returns the position of a result in the stage in O(log n).
+     * @param result A result of the stage.
+     * @return The position of the result, where 0 is the fastest rider.
+     */
+    public int getRank(StageResult result) {
+        return results.rankOf(keyOf(result));
+    }
+
+    /**
+     * Returns the position of a rider in the stage, with their gap to the
+     * leader, in O(log n).
+     * @param result The result of the rider in the stage.
+     * @return The position of the rider, by elapsed time.
+     */
+    public RiderPosition getPosition(StageResult result) {
+        return new RiderPosition(result.getRiderID(), getRank(result) + 1,
+                result.getIntElapsedTime(), results.select(0).getIntElapsedTime());
+    }
+
+    /**
+     * Returns a range of the ranked results of the stage in O(log n + (to - from)).
+     * @param from The first position of the range, inclusive, where 0 is the fastest rider.
+     * @param to The last position of the range, exclusive.
+     * @return The results in the range, from the fastest to the slowest.
+     */
+    public StageResult[] getResults(int from, int to) {
+        return results.values(from, to).toArray(new StageResult[0]);
+    }
+
+    /**
+     * Returns the results of the stage in ranked order.
+     * @return The results, from the fastest to the slowest.
+     */
+    public StageResult[] getRankedResults() {
+        return results.values().toArray(new StageResult[0]);
+    }
+
+    /**
+     * Stores the adjusted elapsed times of the stage, sweeping the ranked
+     * results only if a result was added or removed since the last sweep.
+     * @param timeTrial True if the stage is a time-trial.
+     */
+    public void adjustElapsedTimes(boolean timeTrial) {
+        if (!adjusted) {
+            RankingEngine.adjustElapsedTimes(getRankedResults(), timeTrial);
+            adjusted = true;
+        }
+    }
+
+    /**
+     * Stores the points and mountain points of the stage, scoring the ranked
+     * results only if they or the points tables changed since the last time.
+     * @param scoring The engine holding the current points tables.
+     * @param stageType The type of the stage.
+     * @param segmentTypes The types of the segments of the stage, in the order
+     * of their checkpoints.
+     */
+    public void score(ScoringEngine scoring, StageType stageType, SegmentType[] segmentTypes) {
+        if (!scored) {
+            scoring.scoreStage(stageType, segmentTypes, getRankedResults());
+            scored = true;
+        }
+    }
+
+    /**
+     * Marks the adjusted elapsed times and points of the stage as out of
+     * date, so that both are computed again from the results.
+     */
+    public void invalidate() {
+        adjusted = false;
+        scored = false;
+    }
+
+    /**
+     * Marks the points of the stage as out of date, e.g. when the points
+     * tables or the segments of the stage change.
+     */
+    public void invalidateScores() {
+        scored = false;
+    }
+
+    /**
+     * Returns whether the adjusted elapsed times of the stage can be read
+     * without storing anything.
+     * @return True if the adjusted elapsed times are up to date.
+     */
+    public boolean isAdjusted() {
+        return adjusted;
+    }
+
+    /**
+     * Returns whether the points of the stage can be read without storing
+     * anything.
+     * @return True if the points and mountain points are up to date.
+     */
+    public boolean isScored() {
+        return scored;
+    }
+
+    /**
+     * Returns the key of a result in the classification.
+     * @param result The result.
+     * @return The elapsed time in the high 32 bits and the rider ID in the low 32 bits.
+     */
+    private static long keyOf(StageResult result) {
+        return ((long) result.getIntElapsedTime() << 32) | (result.getRiderID() & 0xFFFFFFFFL);
+    }
+}
@@ -2,69 +2,86 @@ package cycling;
 import java.io.Serializable;
 // the terms 'results' and 'checkpoints' are interchangeable.
 import java.time.LocalTime;
-import java.time.temporal.*;
 
 /** Represents a StageResult in CyclingPortal.java
-* 
+* The values of a stage result are held in a row of
+* the portal's ResultStore; this object is a handle
+* onto that row.
 */
 public class StageResult implements Serializable {
 
     // attributes
-    private int stageID;
-    private int riderID;
-    private int raceID;
-    private int points;
-    private int mountainPoints;
-    private LocalTime elapsedTime;
-    private LocalTime adjustedElapsedTime;
-    private LocalTime[] checkpoints;
+    private final ResultStore store; // holds the values of the stage result
+    private int row; // updated by the store when the row moves
     
     /** Gets the team's information.
      * @return A string containing the rider's ID, 
      * the stage's ID, and the raceID.
      */
     public String toString() {
-        return "Rider ID: " + this.riderID 
-        + ", Stage ID: " + this.stageID
-        + ", Race ID: " + this.raceID;
+        return "Rider ID: " + this.getRiderID() 
+        + ", Stage ID: " + this.getStageID()
+        + ", Race ID: " + this.getRaceID();
     }
     // getters and setters
     /** Gets the stage's ID.
      * @return The unique ID of the team.
      */
     public int getStageID() {
-        return stageID;
+        return store.getStageID(row);
     }
 
     /** Gets the riderID for the stage result.
      * @return The unique ID of the rider.
      */
     public int getRiderID() {
-        return riderID;
+        return store.getRiderID(row);
     }
     
     /** Gets the raceID for a stage result.
      * @return The unique ID of the rider.
      */
     public int getRaceID() {
-        return raceID;
+        return store.getRaceID(row);
     }
 
     /** Gets the elapsed time for a stage result.
      * @return The elapsed time of a stage result.
      */
     public LocalTime getElapsedTime() {
-        if (elapsedTime == null) {
-            this.elapsedTime = computeElapsedTime();
-        }
-        return this.elapsedTime;
+        return convertIntTimeToLocalTime(store.getElapsedTime(row));
     }
     
     /** Gets the checkpoints array for a stage result.
+     * The LocalTime objects are created on each call
+     * from the stored seconds of the day.
      * @return An array of checkpoints.
      */
     public LocalTime[] getCheckpoints() {
-        return checkpoints;
+        LocalTime[] checkpointTimes = new LocalTime[getNumberOfCheckpoints()];
+        for (int i = 0; i < checkpointTimes.length; i++) {
+            checkpointTimes[i] = convertIntTimeToLocalTime(store.getCheckpoint(row, i));
+        }
+        return checkpointTimes;
+    }
+
+    /** Gets one checkpoint of a stage result
+     * as an int data type.
+     * @param index The index of the checkpoint,
+     * where 0 is the start time.
+     * @return The checkpoint in seconds of the day.
+     */
+    public int getIntCheckpoint(int index) {
+        return store.getCheckpoint(row, index);
+    }
+
+    /** Gets the number of checkpoints of a
+     * stage result, including the start time
+     * and the finish time.
+     * @return The number of checkpoints.
+     */
+    public int getNumberOfCheckpoints() {
+        return store.getNumberOfCheckpoints(row);
     }
 
     /** Gets the elapsed time array 
@@ -74,10 +91,10 @@ public class StageResult implements Serializable {
      * time of a stage result.
      */
     public LocalTime[] getElapsedTimeArray() {
-        LocalTime elapsedTime = this.computeElapsedTime();
-        LocalTime[] elapsedTimeArray = new LocalTime[checkpoints.length - 1];
-        for (int i = 0; i < checkpoints.length - 2; i++) {
-            elapsedTimeArray[i] = checkpoints[i+1];
+        LocalTime elapsedTime = this.getElapsedTime();
+        LocalTime[] elapsedTimeArray = new LocalTime[getNumberOfCheckpoints() - 1];
+        for (int i = 0; i < elapsedTimeArray.length - 1; i++) {
+            elapsedTimeArray[i] = convertIntTimeToLocalTime(store.getCheckpoint(row, i+1));
         }
         elapsedTimeArray[elapsedTimeArray.length - 1] = elapsedTime;
         return elapsedTimeArray;
@@ -86,10 +103,22 @@ public class StageResult implements Serializable {
 
     /** Gets the adjusted elapsed time for a
      * stage result.
-     * @return The adjusted elapsed time.
+     * @return The adjusted elapsed time, or null
+     * if it has not been computed yet.
      */
     public LocalTime getAdjustedElapsedTime() {
-        return adjustedElapsedTime;
+        if (!isAdjusted()) {
+            return null;
+        }
+        return convertIntTimeToLocalTime(store.getAdjustedElapsedTime(row));
+    }
+
+    /** Checks whether the adjusted elapsed time
+     * of a stage result has been computed.
+     * @return True if the adjusted elapsed time is set.
+     */
+    public boolean isAdjusted() {
+        return store.getAdjustedElapsedTime(row) >= 0;
     }
 
     /** Sets the adjusted elapsed time for a
@@ -98,7 +127,16 @@ public class StageResult implements Serializable {
      * elapsed time of a stage result.
      */
     public void setAdjustedElapsedTime(LocalTime adjustedElapsedTime) {
-        this.adjustedElapsedTime = adjustedElapsedTime;
+        store.setAdjustedElapsedTime(row, adjustedElapsedTime.toSecondOfDay());
+    }
+
+    /** Sets the adjusted elapsed time for a
+     * stage result, in seconds.
+     * @param adjustedElapsedTime The adjusted
+     * elapsed time of a stage result in seconds.
+     */
+    public void setIntAdjustedElapsedTime(int adjustedElapsedTime) {
+        store.setAdjustedElapsedTime(row, adjustedElapsedTime);
     }
 
     /** Sets the number of points awarded
@@ -106,7 +144,7 @@ public class StageResult implements Serializable {
      * @param points The number of points.
      */
     public void setPoints(int points) {
-        this.points = points;
+        store.setPoints(row, points);
     }
 
     /** Gets the number of points for
@@ -114,7 +152,7 @@ public class StageResult implements Serializable {
      * @return The number of points.
      */
     public int getPoints() {
-        return points;
+        return store.getPoints(row);
     }
 
     /** Sets the number of mountain points
@@ -123,7 +161,7 @@ public class StageResult implements Serializable {
      * mountain points obtained.
      */
     public void setMountainPoints(int mountainPoints) {
-        this.mountainPoints = mountainPoints;
+        store.setMountainPoints(row, mountainPoints);
     } 
     
     /** Gets the number of mountain points
@@ -132,22 +170,40 @@ public class StageResult implements Serializable {
      * mountain points obtained.
      */
     public int getMountainPoints() {
-        return mountainPoints;
+        return store.getMountainPoints(row);
     }
 
     /** Computes the elapsed time.
      * @return The elapsed time.
      */
     public LocalTime computeElapsedTime() {
-        LocalTime startTime = checkpoints[0];
-        LocalTime endTime = checkpoints[checkpoints.length - 1];
-        long elapsedSeconds = startTime.until(endTime, ChronoUnit.SECONDS); // will return elapsed time in seconds (long data type)
-        long hours = elapsedSeconds / 3600;
-        long minutes = (elapsedSeconds % 3600) / 60;
-        long seconds = elapsedSeconds % 60;
-        String elapsedTimeString = String.format("%02d:%02d:%02d", hours, minutes, seconds);
-        LocalTime elapsedTime = LocalTime.parse(elapsedTimeString);
-        return elapsedTime;
+        return convertIntTimeToLocalTime(store.getElapsedTime(row));
+    }
+
+    /** Computes the elapsed time in whole seconds,
+     * truncating any fraction of a second in the same
+     * way as LocalTime.until with ChronoUnit.SECONDS.
+     * @param checkpoints The checkpoints, from the start
+     * time to the finish time.
+     * @return The elapsed time in seconds.
+     */
+    static int computeIntElapsedTime(LocalTime[] checkpoints) {
+        long startTime = checkpoints[0].toNanoOfDay();
+        long endTime = checkpoints[checkpoints.length - 1].toNanoOfDay();
+        return (int) ((endTime - startTime) / 1_000_000_000L);
+    }
+
+    /** Converts checkpoints to seconds of the day,
+     * dropping any fraction of a second.
+     * @param checkpoints The checkpoints to be converted.
+     * @return The checkpoints in seconds of the day.
+     */
+    static int[] toSecondsOfDay(LocalTime[] checkpoints) {
+        int[] seconds = new int[checkpoints.length];
+        for (int i = 0; i < checkpoints.length; i++) {
+            seconds[i] = checkpoints[i].toSecondOfDay();
+        }
+        return seconds;
     }
 
     /** Gets the elapsed time as
@@ -156,25 +212,18 @@ public class StageResult implements Serializable {
      * in int form.
      */
     public int getIntElapsedTime() {
-        int intElapsedTime = 0;
-        intElapsedTime += (this.getElapsedTime().getHour() * 3600);
-        intElapsedTime += (this.getElapsedTime().getMinute() * 60);
-        intElapsedTime += (this.getElapsedTime().getSecond());
-        return intElapsedTime;        
+        return store.getElapsedTime(row);
     }
 
     /** Gets the adjusted elapsed time as an int data type
-     * @return Returns the adjusted elapsed time in int form
+     * @return Returns the adjusted elapsed time in int form,
+     * or the elapsed time if it has not been adjusted yet
      */
     public int getIntAdjustedElapsedTime() {
-        if (this.adjustedElapsedTime == null) {
-            this.computeElapsedTime();
+        if (!isAdjusted()) {
+            return store.getElapsedTime(row);
         }
-        int intAdjustedElapsedTime = 0;
-        intAdjustedElapsedTime += (this.adjustedElapsedTime.getHour() * 3600);
-        intAdjustedElapsedTime += (this.adjustedElapsedTime.getMinute() * 60);
-        intAdjustedElapsedTime += this.adjustedElapsedTime.getSecond();
-        return intAdjustedElapsedTime;
+        return store.getAdjustedElapsedTime(row);
     }
 
 
@@ -183,18 +232,32 @@ public class StageResult implements Serializable {
      * @return A LocalTime object that is equivalent to the intTime
      */
     public static LocalTime convertIntTimeToLocalTime(int intTime) {
-        long hours = intTime / 3600;
-        long minutes = (intTime % 3600) / 60;
-        long seconds = intTime % 60;
-        String localTimeString = String.format("%02d:%02d:%02d", hours, minutes, seconds);
-        LocalTime localTime = LocalTime.parse(localTimeString);
-        return localTime;
+        return LocalTime.ofSecondOfDay(intTime);
     }
 
-    public StageResult(int stageID, int riderID, int raceID, LocalTime... checkpoints) {
-        this.stageID = stageID;
-        this.riderID = riderID;
-        this.raceID = raceID;
-        this.checkpoints = checkpoints;
+    /** Gets the row of the stage result
+     * in its ResultStore.
+     * @return The row.
+     */
+    int getRow() {
+        return row;
+    }
+
+    /** Moves the stage result to another row
+     * of its ResultStore.
+     * @param row The new row.
+     */
+    void setRow(int row) {
+        this.row = row;
+    }
+
+    /** Constructor for StageResult. Stage results
+     * are created by ResultStore.add.
+     * @param store The store holding the values.
+     * @param row The row of the values in the store.
+     */
+    StageResult(ResultStore store, int row) {
+        this.store = store;
+        this.row = row;
     }
-}      
\ No newline at end of file
+}
@@ -12,21 +12,43 @@ public enum StageType {
 	/**
 	 * Used for mostly flat stages.
 	 */
-	FLAT,
+	FLAT(50, 30, 20, 18, 16, 14, 12, 10, 8, 7, 6, 5, 4, 3, 2),
 	
 	/**
 	 * Used for hilly finish or stages with moderate amounts of mountains.
 	 */
-	MEDIUM_MOUNTAIN,
+	MEDIUM_MOUNTAIN(30, 25, 22, 19, 17, 15, 13, 11, 9, 7, 6, 5, 4, 3, 2),
 	
 	/**
 	 * Used for high mountain finish or stages with multiple categorised climbs.
 	 */
-	HIGH_MOUNTAIN,
+	HIGH_MOUNTAIN(20, 17, 15, 13, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1),
 	
 	/**
 	 * Used for time trials. 
 	 */
-	TT;
-	
+	TT(20, 17, 15, 13, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1);
+
+	/**
+	 * The points awarded by finishing position, from the winner down.
+	 */
+	private final int[] points;
+
+	/**
+	 * @param points The points awarded by finishing position.
+	 */
+	StageType(int... points) {
+		this.points = points;
+	}
+
+	/**
+	 * Get the standard points table of this stage type.
+	 * 
+	 * @return The points awarded by finishing position, from the winner down.
+	 *         Positions beyond the table are awarded no points.
+	 */
+	public int[] getPoints() {
+		return points.clone();
+	}
+
 }
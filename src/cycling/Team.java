@@ -13,9 +13,7 @@ public class Team implements Serializable {
     private int teamID;
     private String name;
     private String description;
-
-    static ArrayList<Integer> teamIDs = new ArrayList<Integer>();
-    static ArrayList<Rider> riders = new ArrayList<Rider>();
+    private ArrayList<Rider> riders = new ArrayList<Rider>();
 
     // Team methods
     /** Returns the team's ID.
@@ -40,32 +38,6 @@ public class Team implements Serializable {
         + ", Description:" + this.description;
     }
 
-    /** Returns all team IDs in the system.
-     * @return An integer array containing all team IDs in the system.
-     */
-    public static int[] getTeamIDs() {
-        int[] arrayTeamIDs = new int[teamIDs.size()];
-        for (int i = 0; i < arrayTeamIDs.length; i++) {
-            arrayTeamIDs[i] = teamIDs.get(i).intValue();
-        }
-        return arrayTeamIDs;
-    }
-
-    /** Removes the specified team ID from the system.
-     * @param teamID An integer of the team ID to be removed.
-     */
-    public static void removeTeamID(Integer teamID) {
-        teamIDs.remove(teamID);
-    }
-
-    /**
-     * Deletes all of the data related to the team.
-     */
-    public static void clearAll() {
-        teamIDs.clear();
-        riders.clear();
-    }
-
     // Rider methods
     /** Adds a rider to the team.
      * @param rider A rider object to be added to the team.
@@ -101,25 +73,13 @@ public class Team implements Serializable {
     // constructor
     /**
      * Constructor for Team class.
+     * @param teamID The unique ID of the team, allocated by the portal.
      * @param name The name of the team.
      * @param description A string description of the team.
      */
-    public Team(String name, String description) {
+    public Team(int teamID, String name, String description) {
+        this.teamID = teamID;
         this.name = name;
         this.description = description;
-
-        if (teamIDs.size() == 0) { // Generating the ID
-            this.teamID = 1;
-            teamIDs.add(this.teamID);
-        } else {
-            Integer max = teamIDs.get(0);
-            for (int i = 0; i < teamIDs.size(); i++) {
-                if (teamIDs.get(i) > max) {
-                    max = teamIDs.get(i);                    
-                }
-            }
-            this.teamID = max + 1;
-            teamIDs.add(this.teamID);
-        }
     }
 }